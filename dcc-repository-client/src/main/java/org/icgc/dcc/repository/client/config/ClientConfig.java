@@ -17,6 +17,8 @@
  */
 package org.icgc.dcc.repository.client.config;
 
+import static org.icgc.dcc.repository.pcawg.reader.PCAWGDonorArchiveReader.DEFAULT_PCAWG_DONOR_ARCHIVE_URL;
+
 import java.net.URL;
 
 import org.icgc.dcc.common.core.mail.Mailer;
@@ -24,6 +26,7 @@ import org.icgc.dcc.common.core.report.BufferedReport;
 import org.icgc.dcc.repository.client.core.RepositoryImporter;
 import org.icgc.dcc.repository.core.RepositoryFileContext;
 import org.icgc.dcc.repository.core.RepositoryFileContextBuilder;
+import org.icgc.dcc.repository.core.model.RepositorySource;
 import org.icgc.dcc.repository.core.util.DCCDonorIdResolver;
 import org.icgc.dcc.repository.pcawg.core.PCAWGDonorIdResolver;
 import org.springframework.context.annotation.Bean;
@@ -52,24 +55,29 @@ public class ClientConfig {
         .build();
   }
 
-  @Bean
+  @Bean(destroyMethod = "close")
   @DependsOn("clientBanner")
   public RepositoryFileContext context(ClientProperties properties) {
     val context = RepositoryFileContextBuilder.builder();
+    val pcawgArchiveUrl = pcawgArchiveUrl(properties);
 
     // Inputs
     context
-        .sources(properties.getRepository().getSources());
+        .sources(properties.getRepository().getSources())
+        .asyncInit(properties.getRepository().isAsyncInit());
 
     // IDs
     context
         .idUrl(properties.getId().getServiceUrl())
         .authToken(properties.getId().getAuthToken())
-        .realIds(properties.getId().isEnabled());
+        .realIds(properties.getId().isEnabled())
+        .idParallelism(properties.getId().getParallelism())
+        .idCacheFile(properties.getId().getCacheFile());
 
     // Reference
     context
-        .pcawgIdResolver(new PCAWGDonorIdResolver())
+        .pcawgIdResolver(new PCAWGDonorIdResolver(pcawgArchiveUrl,
+            properties.getRepository().getSources().contains(RepositorySource.PDC)))
         .dccIdResolver(new DCCDonorIdResolver())
         .importMongoUri(properties.getImports().getMongoUri())
         .collabUrl(url(properties.getImports().getCollabUrl()))
@@ -77,14 +85,27 @@ public class ClientConfig {
         .songPDCUrl(url(properties.getImports().getSongPDCUrl()))
         .songPDCToken(properties.getImports().getSongPDCToken())
         .awsUrl(url(properties.getImports().getAwsUrl()))
-        .awsToken(properties.getImports().getAwsToken());
+        .awsToken(properties.getImports().getAwsToken())
+        .tcgaMappingsFile(properties.getImports().getTcgaMappingsFile())
+        .metadataPrefetch(properties.getImports().isMetadataPrefetch())
+        .metadataParallelism(properties.getImports().getMetadataParallelism())
+        .codeListsFile(properties.getImports().getCodeListsFile())
+        .gdcConcurrency(properties.getImports().getGdcConcurrency())
+        .gdcIncremental(properties.getImports().isGdcIncremental())
+        .gdcParallelism(properties.getImports().getGdcParallelism())
+        .pcawgParallelism(properties.getImports().getPcawgParallelism())
+        .pcawgArchiveUrl(pcawgArchiveUrl);
     // Outputs
     context
         .repoMongoUri(properties.getRepository().getMongoUri())
         .esUri(properties.getRepository().getEsUri())
         .esSearchUrl(properties.getRepository().getEsSearchUrl())
         .archiveUri(properties.getRepository().getArchiveUri())
-        .indexAlias(properties.getRepository().getIndexAlias());
+        .indexAlias(properties.getRepository().getIndexAlias())
+        .adaptiveBulk(properties.getRepository().isAdaptiveBulk())
+        .resumableIndex(properties.getRepository().isResumableIndex())
+        .splitIndexes(properties.getRepository().isSplitIndexes())
+        .leanSource(properties.getRepository().isLeanSource());
 
     // Reporting
     context
@@ -93,6 +114,11 @@ public class ClientConfig {
     return context.build();
   }
 
+  private URL pcawgArchiveUrl(ClientProperties properties) {
+    val pcawgArchiveUrl = properties.getImports().getPcawgArchiveUrl();
+    return pcawgArchiveUrl == null ? DEFAULT_PCAWG_DONOR_ARCHIVE_URL : url(pcawgArchiveUrl);
+  }
+
   @SneakyThrows
   private URL url(String path) {
     return new URL(path);
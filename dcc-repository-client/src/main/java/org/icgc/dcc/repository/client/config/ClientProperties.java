@@ -17,6 +17,7 @@
  */
 package org.icgc.dcc.repository.client.config;
 
+import java.io.File;
 import java.net.URI;
 import java.util.Set;
 
@@ -61,6 +62,11 @@ public class ClientProperties {
     String esSearchUrl;
     URI archiveUri;
     String indexAlias;
+    boolean adaptiveBulk;
+    boolean resumableIndex;
+    boolean splitIndexes;
+    boolean leanSource;
+    boolean asyncInit;
 
     public Set<RepositoryImporter.Step> getSteps() {
       return steps == null || steps.isEmpty() ? Step.all() : steps;
@@ -83,6 +89,15 @@ public class ClientProperties {
     String awsToken;
     String songPDCUrl;
     String songPDCToken;
+    File tcgaMappingsFile;
+    boolean metadataPrefetch;
+    int metadataParallelism = 1;
+    File codeListsFile;
+    int gdcConcurrency = 1;
+    boolean gdcIncremental;
+    int gdcParallelism = 1;
+    int pcawgParallelism = 1;
+    String pcawgArchiveUrl;
 
   }
 
@@ -93,6 +108,8 @@ public class ClientProperties {
     String serviceUrl;
     String authToken;
     boolean enabled;
+    int parallelism = 8;
+    File cacheFile;
 
   }
 
@@ -218,9 +218,17 @@ public class RepositoryImporter {
     @Cleanup
     val indexer = new RepositoryFileIndexer(
         context.getMongoUri(), context.getEsUri(), context.getArchiveUri(),
-        context.getIndexAlias());
+        context.getIndexAlias())
+            .adaptiveBulk(context.getIndexOptions().isAdaptiveBulk())
+            .resumable(context.getIndexOptions().isResumableIndex())
+            .splitIndexes(context.getIndexOptions().isSplitIndexes())
+            .leanSource(context.getIndexOptions().isLeanSource());
 
-    indexer.indexFiles();
+    try {
+      indexer.indexFiles();
+    } finally {
+      context.getReport().addInfo("Index metrics: %s", indexer.getMetrics());
+    }
   }
 
   private void report(Stopwatch watch) {
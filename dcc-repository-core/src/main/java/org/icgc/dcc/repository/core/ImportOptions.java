@@ -0,0 +1,63 @@
+/*
+ * Copyright (c) 2016 The Ontario Institute for Cancer Research. All rights reserved.
+ *                                                                                                               
+ * This program and the accompanying materials are made available under the terms of the GNU Public License v3.0.
+ * You should have received a copy of the GNU General Public License along with                                  
+ * this program. If not, see <http://www.gnu.org/licenses/>.                                                     
+ *                                                                                                               
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY                           
+ * EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES                          
+ * OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT                           
+ * SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT,                                
+ * INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED                          
+ * TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS;                               
+ * OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER                              
+ * IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN                         
+ * ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.icgc.dcc.repository.core;
+
+import java.io.File;
+import java.net.URL;
+
+import lombok.Builder;
+import lombok.Value;
+
+/**
+ * Tuning of the source imports carried by the {@link RepositoryFileContext}.
+ */
+@Value
+@Builder
+public class ImportOptions {
+
+  /**
+   * Maximum number of concurrent ID service requests.
+   */
+  int idParallelism;
+
+  /**
+   * Metadata service.
+   */
+  boolean metadataPrefetch;
+  int metadataParallelism;
+
+  /**
+   * Optional local copy of the dictionary code lists.
+   */
+  File codeListsFile;
+
+  /**
+   * GDC.
+   */
+  int gdcConcurrency;
+  boolean gdcIncremental;
+  int gdcParallelism;
+
+  /**
+   * PCAWG. The donor archive is shared by the PCAWG importer, donor id resolution and PDC, or {@code null} for the
+   * default.
+   */
+  int pcawgParallelism;
+  URL pcawgArchiveUrl;
+
+}
@@ -17,28 +17,55 @@
  */
 package org.icgc.dcc.repository.core;
 
+import static java.nio.charset.StandardCharsets.UTF_8;
 import static lombok.AccessLevel.PACKAGE;
 import static lombok.AccessLevel.PRIVATE;
-import static org.icgc.dcc.repository.core.util.RepositoryFiles.qualifyDonorId;
 
+import java.io.Closeable;
+import java.io.IOException;
 import java.net.URI;
 import java.net.URL;
+import java.util.Collection;
 import java.util.Map;
 import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Supplier;
 
 import lombok.*;
+import org.icgc.dcc.common.core.meta.RestfulCodeListsResolver;
 import org.icgc.dcc.common.core.report.BufferedReport;
-import org.icgc.dcc.common.tcga.core.TCGAMappings;
 import org.icgc.dcc.id.client.core.IdClient;
+import org.icgc.dcc.repository.core.id.IdKey;
+import org.icgc.dcc.repository.core.id.PersistentIdCache;
+import org.icgc.dcc.repository.core.meta.CodeListCache;
+import org.icgc.dcc.repository.core.meta.MetadataClient;
+import org.icgc.dcc.repository.core.meta.MetadataService;
 import org.icgc.dcc.repository.core.model.RepositorySource;
+import org.icgc.dcc.repository.core.tcga.CompactTCGAMappings;
+import org.icgc.dcc.repository.core.util.QualifiedDonorIds;
 
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Maps;
+import com.google.common.hash.Hashing;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import com.mongodb.MongoClientURI;
 
 import lombok.extern.slf4j.Slf4j;
 
 @Slf4j
 @RequiredArgsConstructor(access = PACKAGE)
-public class RepositoryFileContext {
+public class RepositoryFileContext implements Closeable {
+
+  /**
+   * Constants.
+   */
+  private static final String CODE_LISTS_URL = "https://submissions.dcc.icgc.org/ws";
 
   /**
    * Configuration.
@@ -83,31 +110,57 @@ public class RepositoryFileContext {
   private final Set<RepositorySource> sources;
   @Getter
   private final boolean readOnly;
+  @Getter
+  @NonNull
+  private final IndexOptions indexOptions;
+  @Getter
+  @NonNull
+  private final ImportOptions importOptions;
 
   /**
    * Metadata.
    */
   @NonNull
-  private final Map<String, String> primarySites;
+  private final Supplier<Map<String, String>> primarySites;
 
   /**
    * Dependencies.
    */
   @NonNull
   private final IdClient idClient;
+  private final PersistentIdCache idCache;
+  @NonNull
+  private final Supplier<CompactTCGAMappings> tcgaMappings;
   @NonNull
-  private final TCGAMappings tcgaMappings;
+  private final Supplier<QualifiedDonorIds> pcawgSubmittedDonorIds;
   @NonNull
-  private final RepositoryIdResolver pcawgIdResolver;
-  private final RepositoryIdResolver dccIdResolver;
+  private final Supplier<QualifiedDonorIds> dccSubmittedDonorIds;
   @Getter
   @NonNull
   private final BufferedReport report;
 
+  @Getter(lazy = true)
+  private final MetadataService metadataService = new MetadataService(
+      new MetadataClient(MetadataClient.DEFAULT_SERVER_URL, importOptions.getMetadataParallelism()),
+      importOptions.isMetadataPrefetch());
+  @Getter(lazy = true)
+  private final CodeListCache codeLists =
+      new CodeListCache(new RestfulCodeListsResolver(CODE_LISTS_URL), importOptions.getCodeListsFile());
   @Getter(lazy = true, value = PRIVATE)
-  private final Set<String> pcawgSubmittedDonorIds = pcawgIdResolver.resolveIds(esSearchUrl);
-  @Getter(lazy = true, value = PRIVATE)
-  private final Set<String> dccSubmittedDonorIds = dccIdResolver.resolveIds(esSearchUrl);
+  private final ExecutorService idExecutor = createIdExecutor(importOptions.getIdParallelism());
+  private final ConcurrentMap<IdKey, CompletableFuture<String>> inFlightIds = Maps.newConcurrentMap();
+
+  /**
+   * Stops the id executor and releases the persistent id cache. Called by the container on shutdown.
+   */
+  @Override
+  public void close() throws IOException {
+    // The pool only starts threads for its first task, so creating it here to stop it costs nothing
+    getIdExecutor().shutdown();
+    if (idCache != null) {
+      idCache.close();
+    }
+  }
 
   public boolean isSourceActive(@NonNull RepositorySource source) {
     return sources.contains(source);
@@ -122,33 +175,48 @@ public class RepositoryFileContext {
   }
 
   public String getPrimarySite(@NonNull String projectCode) {
-    return primarySites.get(projectCode);
+    return primarySites.get().get(projectCode);
   }
 
   public Map<String, String> getTCGAUUIDs(@NonNull Set<String> tcgaBarcodes) {
-    return tcgaMappings.getUUIDs(tcgaBarcodes);
+    return tcgaMappings.get().getUUIDs(tcgaBarcodes);
   }
 
   public Map<String, String> getTCGABarcodes(@NonNull Set<String> tcgaUuids) {
-    return tcgaMappings.getBarcodes(tcgaUuids);
+    return tcgaMappings.get().getBarcodes(tcgaUuids);
   }
 
   public boolean isDCCSubmittedDonorId(@NonNull String projectCode, @NonNull String submittedDonorId) {
-    if (getDccSubmittedDonorIds().contains(qualifyDonorId(projectCode, submittedDonorId))) {
+    if (dccSubmittedDonorIds.get().contains(projectCode, submittedDonorId)) {
       return true;
     }
 
     // Special case for TCGA and TARGET projects that submit legacy barcodes to DCC but UUIDs everywhere else
-    val translatedSubmittedDonorId = tcgaMappings.getBarcode(submittedDonorId);
-    if (getDccSubmittedDonorIds().contains(qualifyDonorId(projectCode, translatedSubmittedDonorId))) {
+    val translatedSubmittedDonorId = tcgaMappings.get().getBarcode(submittedDonorId);
+    if (translatedSubmittedDonorId != null
+        && dccSubmittedDonorIds.get().contains(projectCode, translatedSubmittedDonorId)) {
       return true;
     }
 
     return false;
   }
 
+  /**
+   * @return a hash of the reference data that shapes imported files: DCC donor ids, TCGA mappings and primary sites
+   */
+  public String getReferenceFingerprint() {
+    val hasher = Hashing.md5().newHasher()
+        .putString(dccSubmittedDonorIds.get().fingerprint(), UTF_8)
+        .putString(tcgaMappings.get().fingerprint(), UTF_8);
+    for (val entry : new TreeMap<>(primarySites.get()).entrySet()) {
+      hasher.putString(entry.getKey(), UTF_8).putChar('=').putString(String.valueOf(entry.getValue()), UTF_8).putChar('\n');
+    }
+
+    return hasher.hash().toString();
+  }
+
   public boolean isPCAWGSubmittedDonorId(@NonNull String projectCode, @NonNull String submittedDonorId) {
-    return getPcawgSubmittedDonorIds().contains(qualifyDonorId(projectCode, submittedDonorId));
+    return pcawgSubmittedDonorIds.get().contains(projectCode, submittedDonorId);
   }
 
   public String getDonorId(@NonNull String submittedDonorId, @NonNull String submittedProjectId) {
@@ -156,16 +224,7 @@ public class RepositoryFileContext {
   }
 
   public String ensureDonorId(@NonNull String submittedDonorId, @NonNull String submittedProjectId) {
-    try {
-      if (readOnly) {
-        return getDonorId(submittedDonorId, submittedProjectId);
-      }
-
-      return idClient.createDonorId(submittedDonorId, submittedProjectId);
-    } catch (Exception e) {
-      throw new RuntimeException("Error ensuring donor id for submittedDonorId=" + submittedDonorId
-          + ", submittedProjectId=" + submittedProjectId, e);
-    }
+    return ensureId(IdKey.donor(submittedDonorId, submittedProjectId));
   }
 
   public String getSpecimenId(@NonNull String submittedSpecimenId, @NonNull String submittedProjectId) {
@@ -173,50 +232,141 @@ public class RepositoryFileContext {
   }
 
   public String ensureSpecimenId(@NonNull String submittedSpecimenId, @NonNull String submittedProjectId) {
-    try {
-      if (readOnly) {
-        return getSpecimenId(submittedSpecimenId, submittedProjectId);
+    return ensureId(IdKey.specimen(submittedSpecimenId, submittedProjectId));
+  }
+
+  public String getSampleId(@NonNull String submittedSampleId, @NonNull String submittedProjectId) {
+    return idClient.getSampleId(submittedSampleId, submittedProjectId).orElse(null);
+  }
+
+  public String ensureSampleId(@NonNull String submittedSampleId, @NonNull String submittedProjectId) {
+    return ensureId(IdKey.sample(submittedSampleId, submittedProjectId));
+  }
+
+  public String ensureFileId(@NonNull String objectId) {
+    return ensureId(IdKey.file(objectId));
+  }
+
+  public String getFileId(@NonNull String submittedFileId) {
+    return idClient.getFileId(submittedFileId).orElse(null);
+  }
+
+  public String ensureId(@NonNull IdKey key) {
+    return join(ensureIdAsync(key));
+  }
+
+  /**
+   * Ensures the id of {@code key}. Cached ids are returned directly and only misses are requested on the bounded id
+   * executor. Concurrent callers for the same key share a single in-flight request.
+   */
+  public CompletableFuture<String> ensureIdAsync(@NonNull IdKey key) {
+    if (idCache != null) {
+      val cachedId = idCache.get(key);
+      if (cachedId.isPresent()) {
+        return CompletableFuture.completedFuture(cachedId.get());
       }
+    }
 
-      return idClient.createSpecimenId(submittedSpecimenId, submittedProjectId);
+    val future = new CompletableFuture<String>();
+    val inFlight = inFlightIds.putIfAbsent(key, future);
+    if (inFlight != null) {
+      return inFlight;
+    }
 
-    } catch (Exception e) {
-      throw new RuntimeException("Error ensuring specimen id for submittedSpecimenId=" + submittedSpecimenId
-          + ", submittedProjectId=" + submittedProjectId, e);
+    try {
+      getIdExecutor().execute(() -> {
+        try {
+          future.complete(cached(key, () -> createId(key)));
+        } catch (Throwable t) {
+          future.completeExceptionally(t);
+        } finally {
+          inFlightIds.remove(key, future);
+        }
+      });
+    } catch (RejectedExecutionException e) {
+      inFlightIds.remove(key, future);
+      future.completeExceptionally(e);
     }
+
+    return future;
   }
 
-  public String getSampleId(@NonNull String submittedSampleId, @NonNull String submittedProjectId) {
-    return idClient.getSampleId(submittedSampleId, submittedProjectId).orElse(null);
+  /**
+   * Ensures the ids of all distinct {@code keys} with a bounded parallel fan-out since the ID service only exposes
+   * single id endpoints.
+   * 
+   * @return the ids by key, with {@code null} values for ids that do not exist in read-only mode
+   */
+  public Map<IdKey, String> ensureIds(@NonNull Collection<IdKey> keys) {
+    val futures = Maps.<IdKey, CompletableFuture<String>> newHashMap();
+    for (val key : ImmutableSet.copyOf(keys)) {
+      futures.put(key, ensureIdAsync(key));
+    }
+
+    val ids = Maps.<IdKey, String> newHashMapWithExpectedSize(futures.size());
+    for (val entry : futures.entrySet()) {
+      ids.put(entry.getKey(), join(entry.getValue()));
+    }
+
+    return ids;
   }
 
-  public String ensureSampleId(@NonNull String submittedSampleId, @NonNull String submittedProjectId) {
+  private String createId(IdKey key) {
     try {
-      if (readOnly) {
-        return getSampleId(submittedSampleId, submittedProjectId);
+      val submittedId = key.getSubmittedId();
+      val projectCode = key.getProjectCode();
+      switch (key.getKind()) {
+      case DONOR:
+        return readOnly ? getDonorId(submittedId, projectCode) : idClient.createDonorId(submittedId, projectCode);
+      case SPECIMEN:
+        return readOnly ? getSpecimenId(submittedId, projectCode) : idClient.createSpecimenId(submittedId,
+            projectCode);
+      case SAMPLE:
+        return readOnly ? getSampleId(submittedId, projectCode) : idClient.createSampleId(submittedId, projectCode);
+      case FILE:
+        return readOnly ? getFileId(submittedId) : idClient.createFileId(submittedId);
+      default:
+        throw new IllegalArgumentException("Unsupported id kind: " + key.getKind());
       }
-
-      return idClient.createSampleId(submittedSampleId, submittedProjectId);
     } catch (Exception e) {
-      throw new RuntimeException("Error ensuring sample id for submittedSampleId=" + submittedSampleId
-          + ", submittedProjectId=" + submittedProjectId, e);
+      throw new RuntimeException("Error ensuring " + key.getKind().getId() + " id for submittedId="
+          + key.getSubmittedId() + ", submittedProjectId=" + key.getProjectCode(), e);
     }
   }
 
-  public String ensureFileId(@NonNull String objectId) {
+  private String cached(IdKey key, Supplier<String> resolver) {
+    if (idCache == null) {
+      return resolver.get();
+    }
+
+    val cachedId = idCache.get(key);
+    if (cachedId.isPresent()) {
+      return cachedId.get();
+    }
+
+    val id = resolver.get();
+    if (id != null) {
+      idCache.put(key, id);
+    }
+
+    return id;
+  }
+
+  private static <T> T join(CompletableFuture<T> future) {
     try {
-      if (readOnly) {
-        return getFileId(objectId);
+      return future.join();
+    } catch (CompletionException e) {
+      if (e.getCause() instanceof RuntimeException) {
+        throw (RuntimeException) e.getCause();
       }
 
-      return idClient.createFileId(objectId);
-    } catch (Exception e) {
-      throw new RuntimeException("Error ensuring file id for objectId=" + objectId, e);
+      throw e;
     }
   }
 
-  public String getFileId(@NonNull String submittedFileId) {
-    return idClient.getFileId(submittedFileId).orElse(null);
+  private static ExecutorService createIdExecutor(int idParallelism) {
+    val threadFactory = new ThreadFactoryBuilder().setNameFormat("id-%d").setDaemon(true).build();
+    return Executors.newFixedThreadPool(idParallelism, threadFactory);
   }
 
 }
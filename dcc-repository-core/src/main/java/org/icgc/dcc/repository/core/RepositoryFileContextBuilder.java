@@ -20,11 +20,19 @@ package org.icgc.dcc.repository.core;
 import static java.lang.String.format;
 import static java.util.Collections.emptyMap;
 import static lombok.AccessLevel.PRIVATE;
+import static org.icgc.dcc.common.core.util.Formats.formatCount;
+import static org.icgc.dcc.repository.core.model.RepositorySource.PDC;
 
+import java.io.File;
 import java.net.URI;
 import java.net.URL;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Supplier;
 
 import org.icgc.dcc.common.core.report.BufferedReport;
 import org.icgc.dcc.common.core.util.URIs;
@@ -33,9 +41,16 @@ import org.icgc.dcc.id.client.core.IdClient;
 import org.icgc.dcc.id.client.http.HttpIdClient;
 import org.icgc.dcc.id.client.util.CachingIdClient;
 import org.icgc.dcc.id.client.util.HashIdClient;
+import org.icgc.dcc.repository.core.id.PersistentIdCache;
 import org.icgc.dcc.repository.core.model.RepositorySource;
 import org.icgc.dcc.repository.core.reader.RepositoryProjectReader;
+import org.icgc.dcc.repository.core.tcga.CompactTCGAMappings;
+import org.icgc.dcc.repository.core.util.QualifiedDonorIds;
 
+import com.google.common.base.Stopwatch;
+import com.google.common.base.Suppliers;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import com.mongodb.MongoClientURI;
 
 import lombok.Cleanup;
@@ -45,7 +60,9 @@ import lombok.Setter;
 import lombok.SneakyThrows;
 import lombok.val;
 import lombok.experimental.Accessors;
+import lombok.extern.slf4j.Slf4j;
 
+@Slf4j
 @NoArgsConstructor(access = PRIVATE)
 public final class RepositoryFileContextBuilder {
 
@@ -55,6 +72,11 @@ public final class RepositoryFileContextBuilder {
   private static final int DEFAULT_MONGO_PORT = 27017;
   private static final String MONGO_URI_TEMPLATE = "mongodb://localhost:%d/%s";
   private static final String DEFAULT_ID_SERVICE_URL = "http://hcache-dcc.oicr.on.ca:5391/";
+  private static final int DEFAULT_ID_PARALLELISM = 8;
+  // SONGPDC analyses still carry TCGA UUIDs that SongProcessor translates to barcodes
+  private static final Set<RepositorySource> TCGA_MAPPINGS_FREE_SOURCES = ImmutableSet.of(PDC);
+  private static final ExecutorService INIT_EXECUTOR = Executors.newCachedThreadPool(
+      new ThreadFactoryBuilder().setNameFormat("context-init-%d").setDaemon(true).build());
 
   /**
    * Metadata.
@@ -112,6 +134,15 @@ public final class RepositoryFileContextBuilder {
   private String authToken = null;
   @Setter
   @Accessors(chain = true, fluent = true)
+  private int idParallelism = DEFAULT_ID_PARALLELISM;
+  @Setter
+  @Accessors(chain = true, fluent = true)
+  private File idCacheFile = null;
+  @Setter
+  @Accessors(chain = true, fluent = true)
+  private File tcgaMappingsFile = null;
+  @Setter
+  @Accessors(chain = true, fluent = true)
   private RepositoryIdResolver pcawgIdResolver;
   @Setter
   @Accessors(chain = true, fluent = true)
@@ -122,6 +153,45 @@ public final class RepositoryFileContextBuilder {
   @Setter
   @Accessors(chain = true, fluent = true)
   private boolean readOnly = false;
+  @Setter
+  @Accessors(chain = true, fluent = true)
+  private boolean adaptiveBulk = false;
+  @Setter
+  @Accessors(chain = true, fluent = true)
+  private boolean resumableIndex = false;
+  @Setter
+  @Accessors(chain = true, fluent = true)
+  private boolean splitIndexes = false;
+  @Setter
+  @Accessors(chain = true, fluent = true)
+  private boolean leanSource = false;
+  @Setter
+  @Accessors(chain = true, fluent = true)
+  private boolean asyncInit = false;
+  @Setter
+  @Accessors(chain = true, fluent = true)
+  private boolean metadataPrefetch = false;
+  @Setter
+  @Accessors(chain = true, fluent = true)
+  private int metadataParallelism = 1;
+  @Setter
+  @Accessors(chain = true, fluent = true)
+  private File codeListsFile = null;
+  @Setter
+  @Accessors(chain = true, fluent = true)
+  private int gdcConcurrency = 1;
+  @Setter
+  @Accessors(chain = true, fluent = true)
+  private boolean gdcIncremental = false;
+  @Setter
+  @Accessors(chain = true, fluent = true)
+  private int gdcParallelism = 1;
+  @Setter
+  @Accessors(chain = true, fluent = true)
+  private int pcawgParallelism = 1;
+  @Setter
+  @Accessors(chain = true, fluent = true)
+  private URL pcawgArchiveUrl = null;
 
   public static RepositoryFileContextBuilder builder() {
     return new RepositoryFileContextBuilder();
@@ -129,13 +199,66 @@ public final class RepositoryFileContextBuilder {
 
   @NonNull
   public RepositoryFileContext build() {
-    val primarySites = createPrimarySites();
     val idClient = createIdClient();
-    val tcgaMappings = new TCGAMappingsReader().readMappings();
+    val idCache = createIdCache();
+
+    // Reference data is only loaded when first needed, or in the background from now on when initializing async
+    val primarySites = initialize("primary sites", this::createPrimarySites);
+    val tcgaMappings = initialize("TCGA mappings", this::createTCGAMappings);
+    val pcawgSubmittedDonorIds = initialize("PCAWG donor ids",
+        () -> QualifiedDonorIds.of(pcawgIdResolver.resolveIds(esSearchUrl)));
+    val dccSubmittedDonorIds = initialize("DCC donor ids",
+        () -> QualifiedDonorIds.of(dccIdResolver.resolveIds(esSearchUrl)));
 
     return new RepositoryFileContext(repoMongoUri, esUri, esSearchUrl, collabUrl, collabToken, songPDCUrl, songPDCToken, awsUrl, awsToken,
-        archiveUri, indexAlias, skipImport, sources, readOnly,
-        primarySites, idClient, tcgaMappings, pcawgIdResolver, dccIdResolver, report);
+        archiveUri, indexAlias, skipImport, sources, readOnly, createIndexOptions(), createImportOptions(),
+        primarySites, idClient, idCache, tcgaMappings, pcawgSubmittedDonorIds, dccSubmittedDonorIds, report);
+  }
+
+  private IndexOptions createIndexOptions() {
+    return IndexOptions.builder()
+        .adaptiveBulk(adaptiveBulk)
+        .resumableIndex(resumableIndex)
+        .splitIndexes(splitIndexes)
+        .leanSource(leanSource)
+        .build();
+  }
+
+  private ImportOptions createImportOptions() {
+    return ImportOptions.builder()
+        .idParallelism(idParallelism)
+        .metadataPrefetch(metadataPrefetch)
+        .metadataParallelism(metadataParallelism)
+        .codeListsFile(codeListsFile)
+        .gdcConcurrency(gdcConcurrency)
+        .gdcIncremental(gdcIncremental)
+        .gdcParallelism(gdcParallelism)
+        .pcawgParallelism(pcawgParallelism)
+        .pcawgArchiveUrl(pcawgArchiveUrl)
+        .build();
+  }
+
+  private <T> Supplier<T> initialize(String name, Supplier<T> initializer) {
+    Supplier<T> timed = () -> {
+      val watch = Stopwatch.createStarted();
+      val value = initializer.get();
+      log.info("Initialized {} in {}", name, watch);
+
+      return value;
+    };
+
+    if (!asyncInit) {
+      return Suppliers.memoize(timed::get)::get;
+    }
+
+    val future = CompletableFuture.supplyAsync(timed, INIT_EXECUTOR);
+    return () -> {
+      try {
+        return future.join();
+      } catch (CompletionException e) {
+        throw new RuntimeException("Error initializing " + name, e.getCause());
+      }
+    };
   }
 
   private Map<String, String> createPrimarySites() {
@@ -150,6 +273,35 @@ public final class RepositoryFileContextBuilder {
     return realIds ? new CachingIdClient(new HttpIdClient(idUrl, "", authToken)) : new HashIdClient();
   }
 
+  private PersistentIdCache createIdCache() {
+    // Only real ids are worth persisting and they must not be mixed with hashed ids
+    return realIds && idCacheFile != null ? new PersistentIdCache(idCacheFile, idUrl) : null;
+  }
+
+  private CompactTCGAMappings createTCGAMappings() {
+    if (TCGA_MAPPINGS_FREE_SOURCES.containsAll(sources)) {
+      log.info("Skipping TCGA mappings since no active source needs them");
+      return CompactTCGAMappings.of(emptyMap());
+    }
+
+    // Legacy TCGA mappings are frozen, so a previously written file is reused as is until it is deleted
+    if (tcgaMappingsFile != null && tcgaMappingsFile.exists()) {
+      val watch = Stopwatch.createStarted();
+      val tcgaMappings = CompactTCGAMappings.read(tcgaMappingsFile);
+      log.info("Read {} TCGA mappings from '{}' in {}", formatCount(tcgaMappings.size()), tcgaMappingsFile, watch);
+
+      return tcgaMappings;
+    }
+
+    val tcgaMappings = CompactTCGAMappings.of(new TCGAMappingsReader().readMappings().getMappings());
+    if (tcgaMappingsFile != null) {
+      tcgaMappings.write(tcgaMappingsFile);
+      log.info("Wrote {} TCGA mappings to '{}'", formatCount(tcgaMappings.size()), tcgaMappingsFile);
+    }
+
+    return tcgaMappings;
+  }
+
   @SneakyThrows
   private static Map<String, String> getProjectPrimarySites(MongoClientURI geneMongoUri) {
     @Cleanup
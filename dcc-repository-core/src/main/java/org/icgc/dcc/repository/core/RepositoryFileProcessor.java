@@ -34,12 +34,9 @@ import java.util.function.Consumer;
 import java.util.function.Predicate;
 import java.util.stream.Stream;
 
-import org.icgc.dcc.common.core.meta.Resolver.CodeListsResolver;
-import org.icgc.dcc.common.core.meta.RestfulCodeListsResolver;
 import org.icgc.dcc.common.core.util.UUID5;
+import org.icgc.dcc.repository.core.id.IdKey;
 import org.icgc.dcc.repository.core.meta.Entity;
-import org.icgc.dcc.repository.core.meta.MetadataClient;
-import org.icgc.dcc.repository.core.meta.MetadataService;
 import org.icgc.dcc.repository.core.model.RepositoryFile;
 import org.icgc.dcc.repository.core.model.RepositoryFile.Donor;
 import org.icgc.dcc.repository.core.model.RepositoryFile.Study;
@@ -53,6 +50,7 @@ import com.google.common.collect.Sets;
 
 import lombok.NonNull;
 import lombok.RequiredArgsConstructor;
+import lombok.Value;
 import lombok.val;
 import lombok.extern.slf4j.Slf4j;
 
@@ -67,9 +65,6 @@ public abstract class RepositoryFileProcessor {
    */
   @NonNull
   protected final RepositoryFileContext context;
-  private final MetadataService metadataService = new MetadataService(new MetadataClient());
-  private final CodeListsResolver codeListsResolver =
-      new RestfulCodeListsResolver("https://submissions.dcc.icgc.org/ws");
 
   protected void assignStudy(Iterable<RepositoryFile> files) {
     eachFileDonor(files, donor -> {
@@ -97,35 +92,24 @@ public abstract class RepositoryFileProcessor {
    *                                 https://github.com/icgc-dcc/dcc-portal/issues/553
    */
   protected void assignIds(Iterable<RepositoryFile> donorFiles, boolean readTCGAOtherIdentifiers) {
-    for (val donorFile : donorFiles) {
-      for (val donor : donorFile.getDonors()) {
-        val projectCode = donor.getProjectCode();
-
-        // Special case for TCGA who submits barcodes to DCC but UUIDs to PCAWG
-        val translate = readTCGAOtherIdentifiers && TRANSLATABLE_PROJECT_CODES.contains(donor.getProjectCode());
-        val submittedDonorId =
-            translate ? donor.getOtherIdentifiers().getTcgaParticipantBarcode() : donor.getSubmittedDonorId();
-        val submittedSpecimenId =
-            translate ? donor.getOtherIdentifiers().getTcgaSampleBarcode() : donor.getSubmittedSpecimenId();
-        val submittedSampleId =
-            translate ? donor.getOtherIdentifiers().getTcgaAliquotBarcode() : donor.getSubmittedSampleId();
-        val submittedMatchedSampleId = donor.getMatchedControlSampleId();
-
-        // Get IDs or create if they don't exist. This is different than the other repos.
-        donor
-            .setDonorId(
-                submittedDonorId == null ? null : context.ensureDonorId(submittedDonorId, projectCode))
-            .setSpecimenId(
-                normalizeIds(submittedSpecimenId).stream()
-                    .map(s -> context.ensureSpecimenId(s, projectCode)).collect(toList()))
-            .setSampleId(
-                normalizeIds(submittedSampleId).stream()
-                    .map(s -> context.ensureSampleId(s, projectCode)).collect(toList()))
-            .setMatchedControlSampleId(
-                submittedMatchedSampleId == null ? null : context.ensureSampleId(submittedMatchedSampleId,
-                    projectCode));
-      }
-    }
+    // Collect the distinct ids of all donors up front so they can be resolved as a batch
+    val keys = Sets.<IdKey> newHashSet();
+    eachFileDonor(donorFiles, donor -> keys.addAll(resolveIdKeys(donor, readTCGAOtherIdentifiers).getAll()));
+
+    log.debug("Ensuring {} distinct ids...", formatCount(keys));
+    val ids = context.ensureIds(keys);
+
+    eachFileDonor(donorFiles, donor -> {
+      val donorKeys = resolveIdKeys(donor, readTCGAOtherIdentifiers);
+
+      // Get IDs or create if they don't exist. This is different than the other repos.
+      donor
+          .setDonorId(donorKeys.getDonor() == null ? null : ids.get(donorKeys.getDonor()))
+          .setSpecimenId(donorKeys.getSpecimens().stream().map(ids::get).collect(toList()))
+          .setSampleId(donorKeys.getSamples().stream().map(ids::get).collect(toList()))
+          .setMatchedControlSampleId(
+              donorKeys.getMatchedControlSample() == null ? null : ids.get(donorKeys.getMatchedControlSample()));
+    });
   }
 
   protected void translateUUIDs(Iterable<RepositoryFile> donorFiles) {
@@ -141,26 +125,19 @@ public abstract class RepositoryFileProcessor {
   }
 
   protected Optional<Entity> findEntity(@NonNull String objectId) {
-    return metadataService.getEntity(objectId);
+    return context.getMetadataService().getEntity(objectId);
   }
 
   protected Optional<Entity> findIndexEntity(@NonNull Entity entity) {
-    return metadataService.getIndexEntity(entity);
+    return context.getMetadataService().getIndexEntity(entity);
   }
 
   protected Optional<Entity> findXmlEntity(@NonNull Entity entity) {
-    return metadataService.getXmlEntity(entity);
+    return context.getMetadataService().getXmlEntity(entity);
   }
 
   protected Optional<ObjectNode> findCodeList(@NonNull String name) {
-    for (val codeList : codeListsResolver.get()) {
-      val currentName = codeList.get("name").textValue();
-      if (currentName.equals(name)) {
-        return Optional.of((ObjectNode) codeList);
-      }
-    }
-
-    return Optional.empty();
+    return context.getCodeLists().get(name);
   }
 
   protected static Set<String> resolveTranslatableUUIDs(Iterable<RepositoryFile> donorFiles) {
@@ -230,6 +207,26 @@ public abstract class RepositoryFileProcessor {
     return ImmutableSet.<String> builder().addAll(tcga).addAll(target).build();
   }
 
+  private static DonorIdKeys resolveIdKeys(Donor donor, boolean readTCGAOtherIdentifiers) {
+    val projectCode = donor.getProjectCode();
+
+    // Special case for TCGA who submits barcodes to DCC but UUIDs to PCAWG
+    val translate = readTCGAOtherIdentifiers && TRANSLATABLE_PROJECT_CODES.contains(donor.getProjectCode());
+    val submittedDonorId =
+        translate ? donor.getOtherIdentifiers().getTcgaParticipantBarcode() : donor.getSubmittedDonorId();
+    val submittedSpecimenId =
+        translate ? donor.getOtherIdentifiers().getTcgaSampleBarcode() : donor.getSubmittedSpecimenId();
+    val submittedSampleId =
+        translate ? donor.getOtherIdentifiers().getTcgaAliquotBarcode() : donor.getSubmittedSampleId();
+    val submittedMatchedSampleId = donor.getMatchedControlSampleId();
+
+    return new DonorIdKeys(
+        submittedDonorId == null ? null : IdKey.donor(submittedDonorId, projectCode),
+        normalizeIds(submittedSpecimenId).stream().map(s -> IdKey.specimen(s, projectCode)).collect(toList()),
+        normalizeIds(submittedSampleId).stream().map(s -> IdKey.sample(s, projectCode)).collect(toList()),
+        submittedMatchedSampleId == null ? null : IdKey.sample(submittedMatchedSampleId, projectCode));
+  }
+
   private static List<String> normalizeIds(List<String> ids) {
     if (ids == null) {
       return emptyList();
@@ -243,4 +240,28 @@ public abstract class RepositoryFileProcessor {
     return ids;
   }
 
+  @Value
+  private static class DonorIdKeys {
+
+    IdKey donor;
+    List<IdKey> specimens;
+    List<IdKey> samples;
+    IdKey matchedControlSample;
+
+    public List<IdKey> getAll() {
+      val all = Lists.<IdKey> newArrayList();
+      if (donor != null) {
+        all.add(donor);
+      }
+      all.addAll(specimens);
+      all.addAll(samples);
+      if (matchedControlSample != null) {
+        all.add(matchedControlSample);
+      }
+
+      return all;
+    }
+
+  }
+
 }
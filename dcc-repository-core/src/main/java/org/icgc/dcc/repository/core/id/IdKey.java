@@ -0,0 +1,55 @@
+/*
+ * Copyright (c) 2016 The Ontario Institute for Cancer Research. All rights reserved.
+ *                                                                                                               
+ * This program and the accompanying materials are made available under the terms of the GNU Public License v3.0.
+ * You should have received a copy of the GNU General Public License along with                                  
+ * this program. If not, see <http://www.gnu.org/licenses/>.                                                     
+ *                                                                                                               
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY                           
+ * EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES                          
+ * OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT                           
+ * SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT,                                
+ * INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED                          
+ * TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS;                               
+ * OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER                              
+ * IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN                         
+ * ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.icgc.dcc.repository.core.id;
+
+import lombok.NonNull;
+import lombok.Value;
+
+/**
+ * Submitted identity of an entity for which an ICGC identifier is assigned.
+ */
+@Value
+public class IdKey {
+
+  @NonNull
+  IdKind kind;
+  @NonNull
+  String submittedId;
+
+  /**
+   * {@code null} for {@link IdKind#FILE} which is not scoped by project.
+   */
+  String projectCode;
+
+  public static IdKey donor(String submittedDonorId, String projectCode) {
+    return new IdKey(IdKind.DONOR, submittedDonorId, projectCode);
+  }
+
+  public static IdKey specimen(String submittedSpecimenId, String projectCode) {
+    return new IdKey(IdKind.SPECIMEN, submittedSpecimenId, projectCode);
+  }
+
+  public static IdKey sample(String submittedSampleId, String projectCode) {
+    return new IdKey(IdKind.SAMPLE, submittedSampleId, projectCode);
+  }
+
+  public static IdKey file(String objectId) {
+    return new IdKey(IdKind.FILE, objectId, null);
+  }
+
+}
@@ -0,0 +1,191 @@
+/*
+ * Copyright (c) 2016 The Ontario Institute for Cancer Research. All rights reserved.
+ *                                                                                                               
+ * This program and the accompanying materials are made available under the terms of the GNU Public License v3.0.
+ * You should have received a copy of the GNU General Public License along with                                  
+ * this program. If not, see <http://www.gnu.org/licenses/>.                                                     
+ *                                                                                                               
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY                           
+ * EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES                          
+ * OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT                           
+ * SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT,                                
+ * INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED                          
+ * TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS;                               
+ * OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER                              
+ * IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN                         
+ * ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.icgc.dcc.repository.core.id;
+
+import static com.google.common.base.Preconditions.checkState;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.nio.file.StandardOpenOption.APPEND;
+import static java.nio.file.StandardOpenOption.CREATE;
+import static org.icgc.dcc.common.core.util.Formats.formatCount;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.util.Map;
+import java.util.Optional;
+
+import com.google.common.base.Splitter;
+import com.google.common.base.Stopwatch;
+import com.google.common.collect.Maps;
+
+import lombok.Cleanup;
+import lombok.NonNull;
+import lombok.SneakyThrows;
+import lombok.val;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Cache of assigned ICGC ids that survives across runs.
+ * <p>
+ * Ids never change once created, so entries are only ever appended to a tab separated log which is replayed into an
+ * in-memory index at startup. The log starts with a header naming the id service it was written for and is refused
+ * for any other service. Only newline terminated records are trusted: a partially written trailing record from an
+ * interrupted run is truncated before appending resumes.
+ */
+@Slf4j
+public class PersistentIdCache implements Closeable {
+
+  /**
+   * Constants.
+   */
+  private static final char SEPARATOR = '\t';
+  private static final Splitter SPLITTER = Splitter.on(SEPARATOR);
+  private static final String NULL_PROJECT_CODE = "";
+  private static final String HEADER_PREFIX = "# ";
+
+  /**
+   * Configuration.
+   */
+  private final File file;
+  private final String serviceUrl;
+
+  /**
+   * State.
+   */
+  private final Map<String, String> ids = Maps.newConcurrentMap();
+  private final BufferedWriter writer;
+
+  @SneakyThrows
+  public PersistentIdCache(@NonNull File file, @NonNull String serviceUrl) {
+    this.file = file;
+    this.serviceUrl = serviceUrl;
+    val exists = file.exists() && truncatePartialRecord() > 0;
+    if (exists) {
+      load();
+    }
+
+    val parent = file.getAbsoluteFile().getParentFile();
+    checkState(parent.isDirectory() || parent.mkdirs(), "Could not create id cache directory %s", parent);
+    this.writer = Files.newBufferedWriter(file.toPath(), UTF_8, CREATE, APPEND);
+    if (!exists) {
+      log.info("Creating id cache at '{}' for '{}'", file, serviceUrl);
+      writer.append(HEADER_PREFIX).append(serviceUrl).append('\n');
+      writer.flush();
+    }
+  }
+
+  public int size() {
+    return ids.size();
+  }
+
+  public Optional<String> get(@NonNull IdKey key) {
+    return Optional.ofNullable(ids.get(formatKey(key)));
+  }
+
+  @SneakyThrows
+  public synchronized void put(@NonNull IdKey key, @NonNull String id) {
+    if (!isStorable(key, id)) {
+      return;
+    }
+
+    val formattedKey = formatKey(key);
+    if (ids.putIfAbsent(formattedKey, id) == null) {
+      writer.append(formattedKey).append(SEPARATOR).append(id).append('\n');
+      writer.flush();
+    }
+  }
+
+  @Override
+  public synchronized void close() throws IOException {
+    writer.close();
+  }
+
+  /**
+   * Drops anything after the last newline so that a record cut short by an interrupted run is neither loaded nor
+   * continued by the next append.
+   *
+   * @return the length of the file afterwards
+   */
+  private long truncatePartialRecord() throws IOException {
+    @Cleanup
+    val raf = new RandomAccessFile(file, "rw");
+    long length = raf.length();
+    while (length > 0) {
+      raf.seek(length - 1);
+      if (raf.read() == '\n') {
+        break;
+      }
+
+      length--;
+    }
+
+    if (length < raf.length()) {
+      log.warn("Truncating partial trailing record of {} bytes from id cache '{}'", raf.length() - length, file);
+      raf.setLength(length);
+    }
+
+    return length;
+  }
+
+  private void load() throws IOException {
+    val watch = Stopwatch.createStarted();
+    int skipped = 0;
+
+    @Cleanup
+    val reader = Files.newBufferedReader(file.toPath(), UTF_8);
+    val header = reader.readLine();
+    checkState(header != null && header.equals(HEADER_PREFIX + serviceUrl),
+        "Id cache '%s' was not written for id service '%s' (header: '%s'). Remove it or configure another file.",
+        file, serviceUrl, header);
+
+    String line;
+    while ((line = reader.readLine()) != null) {
+      val fields = SPLITTER.splitToList(line);
+      if (fields.size() != 4 || fields.get(3).isEmpty()) {
+        skipped++;
+        continue;
+      }
+
+      ids.put(formatKey(fields.get(0), fields.get(1), fields.get(2)), fields.get(3));
+    }
+
+    log.info("Loaded {} cached ids from '{}' in {} (skipped {} lines)", formatCount(ids.size()), file, watch,
+        skipped);
+  }
+
+  private static boolean isStorable(IdKey key, String id) {
+    return isStorable(key.getSubmittedId()) && isStorable(key.getProjectCode()) && isStorable(id);
+  }
+
+  private static boolean isStorable(String value) {
+    return value == null || value.indexOf(SEPARATOR) < 0 && value.indexOf('\n') < 0;
+  }
+
+  private static String formatKey(IdKey key) {
+    val projectCode = key.getProjectCode() == null ? NULL_PROJECT_CODE : key.getProjectCode();
+    return formatKey(key.getKind().getId(), key.getSubmittedId(), projectCode);
+  }
+
+  private static String formatKey(String kind, String submittedId, String projectCode) {
+    return kind + SEPARATOR + submittedId + SEPARATOR + projectCode;
+  }
+
+}
@@ -0,0 +1,157 @@
+/*
+ * Copyright (c) 2016 The Ontario Institute for Cancer Research. All rights reserved.
+ *                                                                                                               
+ * This program and the accompanying materials are made available under the terms of the GNU Public License v3.0.
+ * You should have received a copy of the GNU General Public License along with                                  
+ * this program. If not, see <http://www.gnu.org/licenses/>.                                                     
+ *                                                                                                               
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY                           
+ * EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES                          
+ * OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT                           
+ * SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT,                                
+ * INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED                          
+ * TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS;                               
+ * OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER                              
+ * IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN                         
+ * ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.icgc.dcc.repository.core.meta;
+
+import static com.google.common.base.Preconditions.checkState;
+import static java.util.concurrent.TimeUnit.DAYS;
+import static org.icgc.dcc.common.core.json.Jackson.DEFAULT;
+
+import java.io.File;
+import java.util.Map;
+import java.util.Optional;
+
+import org.icgc.dcc.common.core.meta.Resolver.CodeListsResolver;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Maps;
+
+import lombok.NonNull;
+import lombok.RequiredArgsConstructor;
+import lombok.SneakyThrows;
+import lombok.val;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Process wide cache of dictionary code lists indexed by name.
+ * <p>
+ * Code lists are fetched at most once per TTL. When a {@code file} is configured the last fetched code lists are
+ * written to it and read back on startup while still fresh, or whenever the submission service cannot be reached.
+ */
+@Slf4j
+@RequiredArgsConstructor
+public class CodeListCache {
+
+  /**
+   * Constants.
+   */
+  public static final long DEFAULT_TTL_MS = DAYS.toMillis(1);
+
+  /**
+   * Dependencies.
+   */
+  @NonNull
+  private final CodeListsResolver resolver;
+
+  /**
+   * Configuration.
+   */
+  private final File file;
+  private final long ttlMs;
+
+  /**
+   * State.
+   */
+  private volatile Map<String, ObjectNode> codeLists;
+  private volatile long expiresAt;
+
+  public CodeListCache(CodeListsResolver resolver, File file) {
+    this(resolver, file, DEFAULT_TTL_MS);
+  }
+
+  public Optional<ObjectNode> get(@NonNull String name) {
+    return Optional.ofNullable(getCodeLists().get(name));
+  }
+
+  private Map<String, ObjectNode> getCodeLists() {
+    if (codeLists == null || System.currentTimeMillis() >= expiresAt) {
+      refresh();
+    }
+
+    return codeLists;
+  }
+
+  private synchronized void refresh() {
+    val now = System.currentTimeMillis();
+    if (codeLists != null && now < expiresAt) {
+      return;
+    }
+
+    if (codeLists == null && isFresh(now)) {
+      load(readFile(), file.lastModified());
+      log.info("Read {} code lists from '{}'", codeLists.size(), file);
+      return;
+    }
+
+    try {
+      val fetched = resolver.get();
+      load(fetched, now);
+      log.info("Fetched {} code lists", codeLists.size());
+
+      if (file != null) {
+        writeFile(fetched);
+      }
+    } catch (RuntimeException e) {
+      if (codeLists == null && file != null && file.exists()) {
+        log.warn("Could not fetch code lists, falling back to stale '{}': {}", file, e.getMessage());
+        load(readFile(), now);
+      } else if (codeLists != null) {
+        log.warn("Could not refresh code lists, keeping the current ones: {}", e.getMessage());
+        expiresAt = now + ttlMs;
+      } else {
+        throw e;
+      }
+    }
+  }
+
+  private void load(Iterable<JsonNode> values, long loadedAt) {
+    val index = Maps.<String, ObjectNode> newLinkedHashMap();
+    for (val codeList : values) {
+      val name = codeList.get("name").textValue();
+      if (index.putIfAbsent(name, (ObjectNode) codeList) != null) {
+        log.warn("Ignoring duplicate code list '{}'", name);
+      }
+    }
+
+    this.codeLists = ImmutableMap.copyOf(index);
+    this.expiresAt = loadedAt + ttlMs;
+  }
+
+  private boolean isFresh(long now) {
+    return file != null && file.exists() && now - file.lastModified() < ttlMs;
+  }
+
+  @SneakyThrows
+  private ArrayNode readFile() {
+    return DEFAULT.readValue(file, ArrayNode.class);
+  }
+
+  @SneakyThrows
+  private void writeFile(Iterable<JsonNode> values) {
+    val parent = file.getAbsoluteFile().getParentFile();
+    checkState(parent.isDirectory() || parent.mkdirs(), "Could not create code lists directory %s", parent);
+
+    // Write to a sibling first so that readers never see a partial file
+    val temp = new File(parent, file.getName() + ".tmp");
+    DEFAULT.writeValue(temp, values);
+    checkState(temp.renameTo(file), "Could not rename '%s' to '%s'", temp, file);
+  }
+
+}
@@ -20,14 +20,22 @@ package org.icgc.dcc.repository.core.meta;
 import static org.icgc.dcc.common.core.util.stream.Collectors.toImmutableList;
 
 import java.io.FileNotFoundException;
+import java.io.IOException;
 import java.net.URL;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.google.common.collect.ImmutableList;
 import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 
 import lombok.Getter;
 import lombok.NonNull;
@@ -46,6 +54,7 @@ public class MetadataClient {
    */
   public static final String DEFAULT_SERVER_URL = "https://meta.icgc.org";
   private static final ObjectMapper MAPPER = new ObjectMapper();
+  private static final int PAGE_SIZE = 2000;
 
   /**
    * Configuration.
@@ -53,11 +62,19 @@ public class MetadataClient {
   @NonNull
   @Getter
   private final String serverUrl;
+  /**
+   * Number of pages read concurrently when listing entities. {@code 1} reads pages one after another.
+   */
+  private final int pageParallelism;
 
   public MetadataClient() {
     this(DEFAULT_SERVER_URL);
   }
 
+  public MetadataClient(String serverUrl) {
+    this(serverUrl, 1);
+  }
+
   public Entity findEntity(@NonNull String objectId) throws EntityNotFoundException {
     return read("/" + objectId);
   }
@@ -81,18 +98,20 @@ public class MetadataClient {
 
   @SneakyThrows
   private List<Entity> readAll(@NonNull String path) {
+    if (pageParallelism > 1) {
+      return readAllParallel(path);
+    }
+
     val results = Lists.<Entity> newArrayList();
     boolean last = false;
     int pageNumber = 0;
 
     try {
       while (!last) {
-        val url = resolveUrl(path + (path.contains("?") ? "&" : "?") + "size=2000&page=" + pageNumber);
-        val result = MAPPER.readValue(url, ObjectNode.class);
+        val result = readPage(path, pageNumber);
         last = result.path("last").asBoolean();
-        List<Entity> page = MAPPER.convertValue(result.path("content"), new TypeReference<ArrayList<Entity>>() {});
 
-        results.addAll(page);
+        results.addAll(getContent(result));
         pageNumber++;
       }
     } catch (FileNotFoundException e) {
@@ -104,6 +123,66 @@ public class MetadataClient {
     return results.stream().distinct().collect(toImmutableList());
   }
 
+  /**
+   * Reads the first page to learn the page count and the remaining pages concurrently, de-duplicating by id as pages
+   * are merged in order.
+   */
+  @SneakyThrows
+  private List<Entity> readAllParallel(String path) {
+    val results = Maps.<String, Entity> newLinkedHashMap();
+
+    try {
+      val first = readPage(path, 0);
+      merge(results, getContent(first));
+
+      val totalPages = first.path("totalPages").asInt(1);
+      if (totalPages > 1) {
+        val executor = Executors.newFixedThreadPool(Math.min(pageParallelism, totalPages - 1),
+            new ThreadFactoryBuilder().setNameFormat("metadata-page-%d").setDaemon(true).build());
+        try {
+          val pages = Lists.<Future<List<Entity>>> newArrayList();
+          for (int pageNumber = 1; pageNumber < totalPages; pageNumber++) {
+            val page = pageNumber;
+            pages.add(executor.submit(() -> getContent(readPage(path, page))));
+          }
+
+          for (val page : pages) {
+            merge(results, page.get());
+          }
+        } finally {
+          executor.shutdownNow();
+        }
+      }
+    } catch (FileNotFoundException e) {
+      throw new EntityNotFoundException(e.getMessage());
+    } catch (ExecutionException e) {
+      if (e.getCause() instanceof FileNotFoundException) {
+        throw new EntityNotFoundException(e.getCause().getMessage());
+      }
+
+      throw e.getCause();
+    }
+
+    return ImmutableList.copyOf(results.values());
+  }
+
+  private ObjectNode readPage(String path, int pageNumber) throws IOException {
+    val url = resolveUrl(path + (path.contains("?") ? "&" : "?") + "size=" + PAGE_SIZE + "&page=" + pageNumber);
+    return MAPPER.readValue(url, ObjectNode.class);
+  }
+
+  private static List<Entity> getContent(ObjectNode result) {
+    return MAPPER.convertValue(result.path("content"), new TypeReference<ArrayList<Entity>>() {});
+  }
+
+  private static void merge(Map<String, Entity> results, List<Entity> page) {
+    for (val entity : page) {
+      // Remove potential duplicates due to inserts on paging:
+      // See https://jira.oicr.on.ca/browse/COL-491
+      results.putIfAbsent(entity.getId(), entity);
+    }
+  }
+
   @SneakyThrows
   private URL resolveUrl(String path) {
     return new URL(serverUrl + "/entities" + path);
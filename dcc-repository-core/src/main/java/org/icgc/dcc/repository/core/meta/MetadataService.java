@@ -17,22 +17,68 @@
  */
 package org.icgc.dcc.repository.core.meta;
 
+import static java.util.Collections.emptyMap;
+import static org.icgc.dcc.common.core.util.Formats.formatCount;
+
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
 import java.util.Optional;
 
+import com.google.common.base.Stopwatch;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Maps;
+
+import lombok.Getter;
+import lombok.NonNull;
 import lombok.RequiredArgsConstructor;
 import lombok.val;
+import lombok.extern.slf4j.Slf4j;
 
+/**
+ * Metadata entity lookups.
+ * <p>
+ * By default every lookup is a request to the metadata service. In prefetch mode all entities are read once and
+ * lookups are answered from in-memory indexes by id and by gnos id and lower-cased file name.
+ */
+@Slf4j
 @RequiredArgsConstructor
 public class MetadataService {
 
+  /**
+   * Dependencies.
+   */
+  @NonNull
   private final MetadataClient metadataClient;
 
+  /**
+   * Configuration.
+   */
+  private final boolean prefetch;
+
+  /**
+   * State.
+   */
+  @Getter(lazy = true)
+  private final EntityIndex index = createIndex();
+
+  public MetadataService(MetadataClient metadataClient) {
+    this(metadataClient, false);
+  }
+
   public List<Entity> getEntities() {
+    if (prefetch) {
+      return getIndex().getEntities();
+    }
+
     return metadataClient.findEntities();
   }
 
   public Optional<Entity> getEntity(String objectId) {
+    if (prefetch) {
+      return Optional.ofNullable(getIndex().getIds().get(objectId));
+    }
+
     try {
       return Optional.of(metadataClient.findEntity(objectId));
     } catch (EntityNotFoundException e) {
@@ -41,6 +87,12 @@ public class MetadataService {
   }
 
   public Optional<Entity> getIndexEntity(Entity entity) {
+    if (prefetch) {
+      val fileNames = getIndex().getFileNames(entity.getGnosId());
+      val bai = fileNames.get(normalize(entity.getFileName() + ".bai"));
+      return Optional.ofNullable(bai != null ? bai : fileNames.get(normalize(entity.getFileName() + ".tbi")));
+    }
+
     val entities = metadataClient.findEntitiesByGnosId(entity.getGnosId());
     return entities
         .stream()
@@ -49,6 +101,11 @@ public class MetadataService {
   }
 
   public Optional<Entity> getXmlEntity(Entity entity) {
+    if (prefetch) {
+      val fileNames = getIndex().getFileNames(entity.getGnosId());
+      return Optional.ofNullable(fileNames.get(normalize(entity.getGnosId() + ".xml")));
+    }
+
     val entities = metadataClient.findEntitiesByGnosId(entity.getGnosId());
     return entities
         .stream()
@@ -56,6 +113,14 @@ public class MetadataService {
         .findFirst();
   }
 
+  private EntityIndex createIndex() {
+    val watch = Stopwatch.createStarted();
+    val index = new EntityIndex(metadataClient.findEntities());
+    log.info("Prefetched {} metadata entities in {}", formatCount(index.getEntities().size()), watch);
+
+    return index;
+  }
+
   private static boolean isIndexFile(Entity e, String fileName) {
     return isBaiFile(e, fileName) || isTbiFile(e, fileName);
   }
@@ -76,4 +141,42 @@ public class MetadataService {
     return e.getFileName().compareToIgnoreCase(indexFileName) == 0;
   }
 
+  private static String normalize(String fileName) {
+    return fileName.toLowerCase(Locale.ENGLISH);
+  }
+
+  @Getter
+  private static class EntityIndex {
+
+    private final List<Entity> entities;
+    private final Map<String, Entity> ids;
+    private final Map<String, Map<String, Entity>> gnosIdFileNames;
+
+    private EntityIndex(List<Entity> entities) {
+      val ids = Maps.<String, Entity> newHashMapWithExpectedSize(entities.size());
+      val gnosIdFileNames = Maps.<String, Map<String, Entity>> newHashMap();
+      for (val entity : entities) {
+        if (entity.getId() != null) {
+          ids.putIfAbsent(entity.getId(), entity);
+        }
+
+        if (entity.getGnosId() != null && entity.getFileName() != null) {
+          // First entity wins to match the order of a gnos id query
+          gnosIdFileNames
+              .computeIfAbsent(entity.getGnosId(), k -> Maps.newHashMap())
+              .putIfAbsent(normalize(entity.getFileName()), entity);
+        }
+      }
+
+      this.entities = entities;
+      this.ids = ImmutableMap.copyOf(ids);
+      this.gnosIdFileNames = gnosIdFileNames;
+    }
+
+    private Map<String, Entity> getFileNames(String gnosId) {
+      return gnosId == null ? emptyMap() : gnosIdFileNames.getOrDefault(gnosId, emptyMap());
+    }
+
+  }
+
 }
@@ -17,25 +17,34 @@
  */
 package org.icgc.dcc.repository.core.release;
 
+import static com.fasterxml.jackson.core.JsonToken.FIELD_NAME;
+import static com.fasterxml.jackson.core.JsonToken.START_ARRAY;
+import static com.fasterxml.jackson.core.JsonToken.START_OBJECT;
 import static org.icgc.dcc.common.core.json.Jackson.DEFAULT;
-import static org.icgc.dcc.common.core.util.Joiners.COMMA;
 
+import java.io.IOException;
+import java.net.HttpURLConnection;
 import java.net.URL;
 import java.util.List;
+import java.util.function.Consumer;
 
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.node.ObjectNode;
 import com.google.common.collect.ImmutableList;
 
 import lombok.Builder;
+import lombok.Cleanup;
+import lombok.NonNull;
 import lombok.RequiredArgsConstructor;
 import lombok.SneakyThrows;
 import lombok.Value;
 import lombok.val;
+import lombok.extern.slf4j.Slf4j;
 
 /**
  * @see https://jira.oicr.on.ca/browse/DCC-4843
  */
+@Slf4j
 @RequiredArgsConstructor
 public class ReleaseClient {
 
@@ -43,6 +52,8 @@ public class ReleaseClient {
    * Constants.
    */
   private static final String DEFAULT_RELEASE_URL = "http://elasticsearch1.res.oicr.on.ca:9200/icgc-release";
+  private static final int SCROLL_SIZE = 5_000;
+  private static final String SCROLL_TIMEOUT = "1m";
 
   /**
    * Configuration.
@@ -54,27 +65,110 @@ public class ReleaseClient {
   }
 
   public List<Donor> getDonors() {
-    val result = readDonors();
-
-    val hits = getHits(result);
-
     val donors = ImmutableList.<Donor> builder();
-    for (val hit : hits) {
-      val donor = createDonor(hit);
-      donors.add(donor);
-    }
+    forEachDonor(donors::add);
 
     return donors.build();
   }
 
+  /**
+   * Streams all release donors to {@code consumer} one scroll page at a time so that memory use does not grow with
+   * the size of the release and the {@code max_result_window} limit does not apply.
+   */
   @SneakyThrows
-  private ObjectNode readDonors() {
-    val size = 100_000; // Way greater than we expect (i.e. ~20k)
-    val fields = COMMA.join("_id", "text.projectId", "text.submittedId"); // Limit fields to those needed
+  public void forEachDonor(@NonNull Consumer<Donor> consumer) {
+    val body = DEFAULT.createObjectNode();
+    body.put("size", SCROLL_SIZE);
+    body.putArray("sort").add("_doc"); // Cheapest scroll order
+    body.putArray("_source").add("text.projectId").add("text.submittedId"); // Limit fields to those needed
+
     val indexType = "donor-text"; // Small and has fields exposed
-    val donorUrl = url + "/" + indexType + "/_search?size=" + size + "&_source_includes=" + fields;
+    String scrollId = readPage(url + "/" + indexType + "/_search?scroll=" + SCROLL_TIMEOUT, body, consumer);
+    try {
+      while (scrollId != null) {
+        val scroll = DEFAULT.createObjectNode();
+        scroll.put("scroll", SCROLL_TIMEOUT);
+        scroll.put("scroll_id", scrollId);
+
+        scrollId = readPage(getScrollUrl(), scroll, consumer);
+      }
+    } finally {
+      clearScroll(scrollId);
+    }
+  }
+
+  /**
+   * @return the scroll id if the page had hits, {@code null} otherwise
+   */
+  private String readPage(String pageUrl, ObjectNode body, Consumer<Donor> consumer) throws IOException {
+    val connection = openConnection(pageUrl, "POST");
+    DEFAULT.writeValue(connection.getOutputStream(), body);
+
+    @Cleanup
+    val parser = DEFAULT.getFactory().createParser(connection.getInputStream());
+    String scrollId = null;
+    int hits = 0;
+    while (parser.nextToken() != null) {
+      if (parser.getCurrentToken() != FIELD_NAME) {
+        continue;
+      }
+
+      val field = parser.getCurrentName();
+      parser.nextToken();
+      if ("_scroll_id".equals(field)) {
+        scrollId = parser.getValueAsString();
+      } else if ("hits".equals(field) && parser.getCurrentToken() == START_ARRAY) {
+        // Only the individual hit trees are materialized
+        while (parser.nextToken() == START_OBJECT) {
+          consumer.accept(createDonor(parser.readValueAsTree()));
+          hits++;
+        }
+      } else if ("hits".equals(field)) {
+        continue; // Descend into the outer hits object
+      } else {
+        parser.skipChildren();
+      }
+    }
+
+    if (hits == 0) {
+      clearScroll(scrollId);
+      return null;
+    }
 
-    return DEFAULT.readValue(new URL(donorUrl), ObjectNode.class);
+    return scrollId;
+  }
+
+  private void clearScroll(String scrollId) {
+    if (scrollId == null) {
+      return;
+    }
+
+    try {
+      val body = DEFAULT.createObjectNode();
+      body.putArray("scroll_id").add(scrollId);
+
+      val connection = openConnection(getScrollUrl(), "DELETE");
+      DEFAULT.writeValue(connection.getOutputStream(), body);
+      connection.getInputStream().close();
+    } catch (IOException e) {
+      // Scrolls expire on their own
+      log.warn("Could not clear scroll: {}", e.getMessage());
+    }
+  }
+
+  @SneakyThrows
+  private String getScrollUrl() {
+    val release = new URL(url);
+    return new URL(release.getProtocol(), release.getHost(), release.getPort(), "/_search/scroll").toString();
+  }
+
+  private static HttpURLConnection openConnection(String connectionUrl, String method) throws IOException {
+    val connection = (HttpURLConnection) new URL(connectionUrl).openConnection();
+    connection.setRequestMethod(method);
+    connection.setRequestProperty("Content-Type", "application/json");
+    connection.setDoOutput(true);
+
+    return connection;
   }
 
   private static Donor createDonor(JsonNode hit) {
@@ -85,10 +179,6 @@ public class ReleaseClient {
         .build();
   }
 
-  private static JsonNode getHits(ObjectNode result) {
-    return result.path("hits").path("hits");
-  }
-
   @Value
   @Builder
   public static class Donor {
@@ -0,0 +1,318 @@
+/*
+ * Copyright (c) 2016 The Ontario Institute for Cancer Research. All rights reserved.
+ *                                                                                                               
+ * This program and the accompanying materials are made available under the terms of the GNU Public License v3.0.
+ * You should have received a copy of the GNU General Public License along with                                  
+ * this program. If not, see <http://www.gnu.org/licenses/>.                                                     
+ *                                                                                                               
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY                           
+ * EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES                          
+ * OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT                           
+ * SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT,                                
+ * INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED                          
+ * TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS;                               
+ * OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER                              
+ * IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN                         
+ * ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.icgc.dcc.repository.core.tcga;
+
+import static com.google.common.base.Preconditions.checkState;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.icgc.dcc.common.core.util.Formats.formatCount;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+import com.google.common.collect.Maps;
+import com.google.common.hash.Hashing;
+
+import lombok.Cleanup;
+import lombok.NonNull;
+import lombok.SneakyThrows;
+import lombok.val;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Read-only TCGA UUID to barcode mappings packed into primitive arrays.
+ * <p>
+ * UUIDs are stored as sorted pairs of {@code long}s with a parallel dictionary of UTF-8 barcodes in a single byte
+ * array. Lookups in either direction are binary searches, so the mappings need a fraction of the heap of string keyed
+ * maps and can be written to and read back from a file without rebuilding.
+ */
+@Slf4j
+public class CompactTCGAMappings {
+
+  /**
+   * Constants.
+   */
+  private static final int MAGIC = 0x54434741; // "TCGA"
+  private static final int VERSION = 1;
+  private static final int UUID_LENGTH = 36;
+
+  /**
+   * State.
+   */
+  private final long[] uuidHighs;
+  private final long[] uuidLows;
+  private final int[] barcodeOffsets;
+  private final byte[] barcodes;
+  private final int[] barcodeOrder;
+
+  private CompactTCGAMappings(long[] uuidHighs, long[] uuidLows, int[] barcodeOffsets, byte[] barcodes) {
+    this.uuidHighs = uuidHighs;
+    this.uuidLows = uuidLows;
+    this.barcodeOffsets = barcodeOffsets;
+    this.barcodes = barcodes;
+    this.barcodeOrder = createBarcodeOrder();
+  }
+
+  /**
+   * @param mappings TCGA UUID to barcode mappings. Keys that are not UUIDs are skipped.
+   */
+  public static CompactTCGAMappings of(@NonNull Map<String, String> mappings) {
+    val entries = Maps.<UUID, String> newTreeMap();
+    int skipped = 0;
+    for (val entry : mappings.entrySet()) {
+      val uuid = parseUUID(entry.getKey());
+      if (uuid == null || entry.getValue() == null) {
+        skipped++;
+        continue;
+      }
+
+      entries.put(uuid, entry.getValue());
+    }
+
+    if (skipped > 0) {
+      log.warn("Skipped {} TCGA mappings with non-UUID keys", formatCount(skipped));
+    }
+
+    val size = entries.size();
+    val uuidHighs = new long[size];
+    val uuidLows = new long[size];
+    val barcodeOffsets = new int[size + 1];
+    val barcodes = new ByteArrayOutputStream(size * 16);
+
+    int i = 0;
+    for (val entry : entries.entrySet()) {
+      uuidHighs[i] = entry.getKey().getMostSignificantBits();
+      uuidLows[i] = entry.getKey().getLeastSignificantBits();
+
+      val barcode = entry.getValue().getBytes(UTF_8);
+      barcodes.write(barcode, 0, barcode.length);
+      barcodeOffsets[++i] = barcodes.size();
+    }
+
+    return new CompactTCGAMappings(uuidHighs, uuidLows, barcodeOffsets, barcodes.toByteArray());
+  }
+
+  @SneakyThrows
+  public static CompactTCGAMappings read(@NonNull File file) {
+    @Cleanup
+    val input = new DataInputStream(new BufferedInputStream(new FileInputStream(file)));
+    checkState(input.readInt() == MAGIC, "File '%s' does not contain TCGA mappings", file);
+    checkState(input.readInt() == VERSION, "Unsupported TCGA mappings version in '%s'", file);
+
+    val size = input.readInt();
+    val uuidHighs = new long[size];
+    val uuidLows = new long[size];
+    val barcodeOffsets = new int[size + 1];
+    for (int i = 0; i < size; i++) {
+      uuidHighs[i] = input.readLong();
+      uuidLows[i] = input.readLong();
+    }
+    for (int i = 0; i <= size; i++) {
+      barcodeOffsets[i] = input.readInt();
+    }
+
+    val barcodes = new byte[barcodeOffsets[size]];
+    input.readFully(barcodes);
+
+    return new CompactTCGAMappings(uuidHighs, uuidLows, barcodeOffsets, barcodes);
+  }
+
+  @SneakyThrows
+  public void write(@NonNull File file) {
+    val parent = file.getAbsoluteFile().getParentFile();
+    checkState(parent.isDirectory() || parent.mkdirs(), "Could not create TCGA mappings directory %s", parent);
+
+    // Write to a sibling first so that an interrupted run never leaves a truncated file behind
+    val temp = new File(parent, file.getName() + ".tmp");
+    try (val output = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temp)))) {
+      output.writeInt(MAGIC);
+      output.writeInt(VERSION);
+      output.writeInt(size());
+      for (int i = 0; i < size(); i++) {
+        output.writeLong(uuidHighs[i]);
+        output.writeLong(uuidLows[i]);
+      }
+      for (val offset : barcodeOffsets) {
+        output.writeInt(offset);
+      }
+
+      output.write(barcodes);
+    }
+
+    checkState(temp.renameTo(file), "Could not rename '%s' to '%s'", temp, file);
+  }
+
+  public int size() {
+    return uuidHighs.length;
+  }
+
+  /**
+   * @return a hash of the mappings, e.g. to detect a change between runs
+   */
+  public String fingerprint() {
+    val hasher = Hashing.md5().newHasher();
+    for (int i = 0; i < size(); i++) {
+      hasher.putLong(uuidHighs[i]).putLong(uuidLows[i]);
+    }
+    for (val offset : barcodeOffsets) {
+      hasher.putInt(offset);
+    }
+
+    return hasher.putBytes(barcodes).hash().toString();
+  }
+
+  public String getBarcode(@NonNull String uuid) {
+    val parsed = parseUUID(uuid);
+    if (parsed == null) {
+      return null;
+    }
+
+    val i = findUUID(parsed.getMostSignificantBits(), parsed.getLeastSignificantBits());
+    return i < 0 ? null : getBarcode(i);
+  }
+
+  public String getUUID(@NonNull String barcode) {
+    val i = findBarcode(barcode.getBytes(UTF_8));
+    return i < 0 ? null : new UUID(uuidHighs[i], uuidLows[i]).toString();
+  }
+
+  /**
+   * @return the barcodes of the {@code uuids} that have a mapping
+   */
+  public Map<String, String> getBarcodes(@NonNull Set<String> uuids) {
+    val result = Maps.<String, String> newHashMapWithExpectedSize(uuids.size());
+    for (val uuid : uuids) {
+      val barcode = getBarcode(uuid);
+      if (barcode != null) {
+        result.put(uuid, barcode);
+      }
+    }
+
+    return result;
+  }
+
+  /**
+   * @return the UUIDs of the {@code barcodes} that have a mapping
+   */
+  public Map<String, String> getUUIDs(@NonNull Set<String> barcodes) {
+    val result = Maps.<String, String> newHashMapWithExpectedSize(barcodes.size());
+    for (val barcode : barcodes) {
+      val uuid = getUUID(barcode);
+      if (uuid != null) {
+        result.put(barcode, uuid);
+      }
+    }
+
+    return result;
+  }
+
+  private int findUUID(long high, long low) {
+    int from = 0;
+    int to = size() - 1;
+    while (from <= to) {
+      val mid = (from + to) >>> 1;
+      int cmp = Long.compare(uuidHighs[mid], high);
+      if (cmp == 0) {
+        cmp = Long.compare(uuidLows[mid], low);
+      }
+
+      if (cmp < 0) {
+        from = mid + 1;
+      } else if (cmp > 0) {
+        to = mid - 1;
+      } else {
+        return mid;
+      }
+    }
+
+    return -1;
+  }
+
+  private int findBarcode(byte[] barcode) {
+    int from = 0;
+    int to = barcodeOrder.length - 1;
+    while (from <= to) {
+      val mid = (from + to) >>> 1;
+      val i = barcodeOrder[mid];
+      val cmp = compareBarcode(i, barcode, 0, barcode.length);
+
+      if (cmp < 0) {
+        from = mid + 1;
+      } else if (cmp > 0) {
+        to = mid - 1;
+      } else {
+        return i;
+      }
+    }
+
+    return -1;
+  }
+
+  private String getBarcode(int i) {
+    return new String(barcodes, barcodeOffsets[i], barcodeOffsets[i + 1] - barcodeOffsets[i], UTF_8);
+  }
+
+  private int compareBarcode(int i, byte[] other, int otherFrom, int otherTo) {
+    val from = barcodeOffsets[i];
+    val to = barcodeOffsets[i + 1];
+    val length = Math.min(to - from, otherTo - otherFrom);
+    for (int k = 0; k < length; k++) {
+      val cmp = Integer.compare(barcodes[from + k] & 0xFF, other[otherFrom + k] & 0xFF);
+      if (cmp != 0) {
+        return cmp;
+      }
+    }
+
+    return Integer.compare(to - from, otherTo - otherFrom);
+  }
+
+  private int[] createBarcodeOrder() {
+    val order = new Integer[size()];
+    for (int i = 0; i < order.length; i++) {
+      order[i] = i;
+    }
+
+    Arrays.sort(order, (a, b) -> compareBarcode(a, barcodes, barcodeOffsets[b], barcodeOffsets[b + 1]));
+
+    return Arrays.stream(order).mapToInt(Integer::intValue).toArray();
+  }
+
+  private static UUID parseUUID(String value) {
+    // UUID.fromString is lenient about group lengths so the canonical form is checked first
+    if (value == null || value.length() != UUID_LENGTH || value.charAt(8) != '-' || value.charAt(13) != '-'
+        || value.charAt(18) != '-' || value.charAt(23) != '-') {
+      return null;
+    }
+
+    try {
+      return UUID.fromString(value);
+    } catch (IllegalArgumentException e) {
+      return null;
+    }
+  }
+
+}
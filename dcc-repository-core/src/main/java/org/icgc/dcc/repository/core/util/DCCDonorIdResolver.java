@@ -26,6 +26,9 @@ import org.icgc.dcc.repository.core.RepositoryIdResolver;
 import org.icgc.dcc.repository.core.release.ReleaseClient;
 import org.icgc.dcc.repository.core.release.ReleaseClient.Donor;
 
+import com.google.common.collect.ImmutableSet;
+
+import lombok.val;
 import lombok.extern.slf4j.Slf4j;
 
 @Slf4j
@@ -39,7 +42,10 @@ public class DCCDonorIdResolver implements RepositoryIdResolver {
   @Override
   public Set<String> resolveIds(String esSearchUrl) {
     log.info("THIS IS MY ELASTICSEARCH URL " + esSearchUrl);
-    return new ReleaseClient(esSearchUrl).getDonors().stream().map(this::formatId).collect(toImmutableSet());
+    val ids = ImmutableSet.<String> builder();
+    new ReleaseClient(esSearchUrl).forEachDonor(donor -> ids.add(formatId(donor)));
+
+    return ids.build();
   }
 
   private String formatId(Donor donor) {
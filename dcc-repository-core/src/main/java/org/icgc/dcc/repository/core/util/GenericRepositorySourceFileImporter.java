@@ -18,8 +18,10 @@
 package org.icgc.dcc.repository.core.util;
 
 import static com.google.common.base.Stopwatch.createStarted;
-import static com.google.common.collect.Iterables.isEmpty;
 import static org.icgc.dcc.common.core.util.Formats.formatCount;
+import static org.icgc.dcc.common.core.util.stream.Streams.stream;
+
+import java.util.stream.Stream;
 
 import org.icgc.dcc.repository.core.RepositoryFileContext;
 import org.icgc.dcc.repository.core.RepositorySourceFileImporter;
@@ -58,29 +60,40 @@ public abstract class GenericRepositorySourceFileImporter implements RepositoryS
   public void execute() {
     val watch = createStarted();
 
-    log.info("Reading '{}' files...", source);
-    val files = readFiles();
-    log.info("Finished '{}' reading files", source);
+    log.info("Reading and writing '{}' files...", source);
+    @Cleanup
+    val files = streamFiles();
+    val count = writeFiles(files);
+    log.info("Finished '{}' reading and writing files", source);
 
-    if (isEmpty(files)) {
+    if (count == 0) {
       log.error("**** Files are empty! Reusing previous imported files");
       return;
     }
 
-    log.info("Writing '{}' files...", source);
-    writeFiles(files);
-    log.info("Finished '{}' writing files", source);
-
-    log.info("Imported {} '{}' files in {}.", formatCount(files), source, watch);
+    log.info("Imported {} '{}' files in {}.", formatCount(count), source, watch);
   }
 
   protected abstract Iterable<RepositoryFile> readFiles();
 
+  /**
+   * Streams the files to import. Large sources should override this to produce files lazily instead of materializing
+   * them in {@link #readFiles()}.
+   */
+  protected Stream<RepositoryFile> streamFiles() {
+    return stream(readFiles());
+  }
+
+  /**
+   * Writes {@code files} in batches as they are produced, leaving the previous import in place if there are none.
+   * 
+   * @return the number of files written
+   */
   @SneakyThrows
-  protected void writeFiles(Iterable<RepositoryFile> files) {
+  protected int writeFiles(Stream<RepositoryFile> files) {
     @Cleanup
     val writer = new RepositorySourceFileWriter(context.getMongoUri(), source);
-    writer.write(files);
+    return writer.writeStaged(files.iterator());
   }
 
 }
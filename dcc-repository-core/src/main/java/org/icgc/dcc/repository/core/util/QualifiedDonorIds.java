@@ -0,0 +1,102 @@
+/*
+ * Copyright (c) 2016 The Ontario Institute for Cancer Research. All rights reserved.
+ *                                                                                                               
+ * This program and the accompanying materials are made available under the terms of the GNU Public License v3.0.
+ * You should have received a copy of the GNU General Public License along with                                  
+ * this program. If not, see <http://www.gnu.org/licenses/>.                                                     
+ *                                                                                                               
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY                           
+ * EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES                          
+ * OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT                           
+ * SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT,                                
+ * INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED                          
+ * TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS;                               
+ * OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER                              
+ * IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN                         
+ * ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.icgc.dcc.repository.core.util;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.Collections.emptySet;
+
+import java.util.Map;
+import java.util.Set;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Ordering;
+import com.google.common.hash.Hashing;
+
+import lombok.NonNull;
+import lombok.val;
+
+/**
+ * Set of {@code projectCode:submittedDonorId} qualified donor ids indexed by project code.
+ * <p>
+ * Membership is answered with two hash lookups on the caller's strings so that hot per-donor checks do not need to
+ * build a qualified id.
+ */
+public class QualifiedDonorIds {
+
+  /**
+   * Constants.
+   */
+  private static final char SEPARATOR = ':';
+
+  /**
+   * State.
+   */
+  private final Map<String, Set<String>> projectDonorIds;
+
+  private QualifiedDonorIds(Map<String, Set<String>> projectDonorIds) {
+    this.projectDonorIds = projectDonorIds;
+  }
+
+  /**
+   * @param qualifiedDonorIds ids as formatted by {@link RepositoryFiles#qualifyDonorId(String, String)}
+   */
+  public static QualifiedDonorIds of(@NonNull Set<String> qualifiedDonorIds) {
+    val builders = Maps.<String, ImmutableSet.Builder<String>> newHashMap();
+    for (val qualifiedDonorId : qualifiedDonorIds) {
+      val i = qualifiedDonorId.indexOf(SEPARATOR);
+      if (i < 0) {
+        continue;
+      }
+
+      val projectCode = qualifiedDonorId.substring(0, i);
+      builders.computeIfAbsent(projectCode, k -> ImmutableSet.builder()).add(qualifiedDonorId.substring(i + 1));
+    }
+
+    val projectDonorIds = ImmutableMap.<String, Set<String>> builder();
+    for (val entry : builders.entrySet()) {
+      projectDonorIds.put(entry.getKey(), entry.getValue().build());
+    }
+
+    return new QualifiedDonorIds(projectDonorIds.build());
+  }
+
+  public boolean contains(String projectCode, String submittedDonorId) {
+    if (projectCode == null || submittedDonorId == null) {
+      return false;
+    }
+
+    return projectDonorIds.getOrDefault(projectCode, emptySet()).contains(submittedDonorId);
+  }
+
+  /**
+   * @return a hash of the ids that does not depend on their order, e.g. to detect a change between runs
+   */
+  public String fingerprint() {
+    val hasher = Hashing.md5().newHasher();
+    for (val projectCode : Ordering.natural().sortedCopy(projectDonorIds.keySet())) {
+      for (val submittedDonorId : Ordering.natural().sortedCopy(projectDonorIds.get(projectCode))) {
+        hasher.putString(projectCode, UTF_8).putChar(SEPARATOR).putString(submittedDonorId, UTF_8).putChar('\n');
+      }
+    }
+
+    return hasher.hash().toString();
+  }
+
+}
@@ -20,11 +20,15 @@ package org.icgc.dcc.repository.core.writer;
 import static org.icgc.dcc.common.core.util.Formats.formatCount;
 import static org.icgc.dcc.repository.core.model.RepositoryCollection.FILE;
 
+import java.util.Iterator;
+import java.util.List;
+
 import org.icgc.dcc.repository.core.model.RepositoryCollection;
 import org.icgc.dcc.repository.core.model.RepositoryFile;
 import org.icgc.dcc.repository.core.util.AbstractJongoWriter;
 import org.jongo.MongoCollection;
 
+import com.google.common.collect.Lists;
 import com.mongodb.MongoClientURI;
 
 import lombok.Getter;
@@ -35,6 +39,12 @@ import lombok.extern.slf4j.Slf4j;
 @Slf4j
 public class RepositoryFileWriter extends AbstractJongoWriter<Iterable<RepositoryFile>> {
 
+  /**
+   * Constants.
+   */
+  private static final String STAGING_SUFFIX = "Staging";
+  private static final int BATCH_SIZE = 1000;
+
   /**
    * Configuration.
    */
@@ -77,6 +87,40 @@ public class RepositoryFileWriter extends AbstractJongoWriter<Iterable<Repositor
     log.info("Finished writing {} '{}' documents", formatCount(writeCount), collection.getName());
   }
 
+  /**
+   * Writes {@code files} in batches as they are produced to a staging collection which then replaces the file
+   * collection. If there are no files the staging collection is dropped and the file collection is left untouched.
+   * 
+   * @return the number of files written
+   */
+  public int writeStaged(@NonNull Iterator<RepositoryFile> files) {
+    val stagingName = collection.getName() + STAGING_SUFFIX;
+    val staging = getCollection(stagingName);
+    staging.drop();
+
+    log.info("Writing '{}' documents...", stagingName);
+    int writeCount = 0;
+    val batch = Lists.<RepositoryFile> newArrayListWithCapacity(BATCH_SIZE);
+    while (files.hasNext()) {
+      batch.add(files.next());
+      if (batch.size() == BATCH_SIZE) {
+        writeCount += insertFiles(staging, batch);
+        log.info("Wrote {} '{}' documents", formatCount(writeCount), stagingName);
+      }
+    }
+    writeCount += insertFiles(staging, batch);
+
+    if (writeCount == 0) {
+      staging.drop();
+      return 0;
+    }
+
+    log.info("Replacing '{}' with {} '{}' documents", collection.getName(), formatCount(writeCount), stagingName);
+    staging.getDBCollection().rename(collection.getName(), true);
+
+    return writeCount;
+  }
+
   public void clearFiles() {
     clearDocuments(fileCollection);
   }
@@ -85,4 +129,16 @@ public class RepositoryFileWriter extends AbstractJongoWriter<Iterable<Repositor
     collection.save(file);
   }
 
+  private static int insertFiles(MongoCollection staging, List<RepositoryFile> batch) {
+    if (batch.isEmpty()) {
+      return 0;
+    }
+
+    val count = batch.size();
+    staging.insert(batch.toArray());
+    batch.clear();
+
+    return count;
+  }
+
 }
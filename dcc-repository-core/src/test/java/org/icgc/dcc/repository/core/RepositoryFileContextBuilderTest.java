@@ -0,0 +1,86 @@
+/*
+ * Copyright (c) 2016 The Ontario Institute for Cancer Research. All rights reserved.
+ *                                                                                                               
+ * This program and the accompanying materials are made available under the terms of the GNU Public License v3.0.
+ * You should have received a copy of the GNU General Public License along with                                  
+ * this program. If not, see <http://www.gnu.org/licenses/>.                                                     
+ *                                                                                                               
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY                           
+ * EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES                          
+ * OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT                           
+ * SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT,                                
+ * INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED                          
+ * TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS;                               
+ * OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER                              
+ * IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN                         
+ * ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.icgc.dcc.repository.core;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.entry;
+import static org.icgc.dcc.repository.core.model.RepositorySource.PDC;
+import static org.icgc.dcc.repository.core.model.RepositorySource.SONGPDC;
+
+import java.io.File;
+import java.io.IOException;
+
+import org.icgc.dcc.repository.core.model.RepositorySource;
+import org.icgc.dcc.repository.core.tcga.CompactTCGAMappings;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+
+import lombok.Cleanup;
+import lombok.val;
+
+public class RepositoryFileContextBuilderTest {
+
+  /**
+   * Constants.
+   */
+  private static final String UUID = "0a1b2c3d-4e5f-4a6b-8c7d-9e0f1a2b3c4d";
+  private static final String BARCODE = "TCGA-02-0001-01C-01D-0182-01";
+
+  @Rule
+  public TemporaryFolder tmp = new TemporaryFolder();
+
+  File tcgaMappingsFile;
+
+  @Before
+  public void setUp() {
+    tcgaMappingsFile = new File(tmp.getRoot(), "tcga-mappings.bin");
+    CompactTCGAMappings.of(ImmutableMap.of(UUID, BARCODE)).write(tcgaMappingsFile);
+  }
+
+  @Test
+  public void testSongPdcTranslatesTcgaBarcodes() throws IOException {
+    @Cleanup
+    val context = newContext(SONGPDC);
+
+    assertThat(context.getTCGABarcodes(ImmutableSet.of(UUID))).containsOnly(entry(UUID, BARCODE));
+  }
+
+  @Test
+  public void testPdcSkipsTcgaMappings() throws IOException {
+    @Cleanup
+    val context = newContext(PDC);
+
+    assertThat(context.getTCGABarcodes(ImmutableSet.of(UUID))).isEmpty();
+  }
+
+  private RepositoryFileContext newContext(RepositorySource source) {
+    return RepositoryFileContextBuilder
+        .builder()
+        .importMongoUri(null)
+        .realIds(false)
+        .sources(ImmutableSet.of(source))
+        .tcgaMappingsFile(tcgaMappingsFile)
+        .build();
+  }
+
+}
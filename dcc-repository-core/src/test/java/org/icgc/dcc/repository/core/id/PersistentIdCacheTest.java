@@ -0,0 +1,93 @@
+/*
+ * Copyright (c) 2016 The Ontario Institute for Cancer Research. All rights reserved.
+ *                                                                                                               
+ * This program and the accompanying materials are made available under the terms of the GNU Public License v3.0.
+ * You should have received a copy of the GNU General Public License along with                                  
+ * this program. If not, see <http://www.gnu.org/licenses/>.                                                     
+ *                                                                                                               
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY                           
+ * EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES                          
+ * OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT                           
+ * SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT,                                
+ * INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED                          
+ * TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS;                               
+ * OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER                              
+ * IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN                         
+ * ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.icgc.dcc.repository.core.id;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.nio.file.StandardOpenOption.APPEND;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.File;
+import java.nio.file.Files;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import lombok.Cleanup;
+import lombok.val;
+
+public class PersistentIdCacheTest {
+
+  /**
+   * Constants.
+   */
+  private static final String SERVICE_URL = "https://id.example.org";
+
+  @Rule
+  public TemporaryFolder tmp = new TemporaryFolder();
+
+  @Test
+  public void testReload() throws Exception {
+    val file = new File(tmp.getRoot(), "ids.log");
+    try (val cache = new PersistentIdCache(file, SERVICE_URL)) {
+      cache.put(IdKey.donor("D1", "PRJ-XX"), "DO1234");
+      cache.put(IdKey.file("object-1"), "FI1");
+    }
+
+    @Cleanup
+    val reloaded = new PersistentIdCache(file, SERVICE_URL);
+    assertThat(reloaded.size()).isEqualTo(2);
+    assertThat(reloaded.get(IdKey.donor("D1", "PRJ-XX")).orElse(null)).isEqualTo("DO1234");
+    assertThat(reloaded.get(IdKey.file("object-1")).orElse(null)).isEqualTo("FI1");
+    assertThat(reloaded.get(IdKey.donor("D1", "PRJ-YY")).isPresent()).isFalse();
+  }
+
+  @Test
+  public void testPartialTrailingRecord() throws Exception {
+    val file = new File(tmp.getRoot(), "ids.log");
+    try (val cache = new PersistentIdCache(file, SERVICE_URL)) {
+      cache.put(IdKey.donor("D1", "PRJ-XX"), "DO1");
+    }
+
+    // Simulate a run interrupted in the middle of writing a record
+    Files.write(file.toPath(), "donor\tD2\tPRJ-XX\tDO12".getBytes(UTF_8), APPEND);
+
+    try (val cache = new PersistentIdCache(file, SERVICE_URL)) {
+      assertThat(cache.size()).isEqualTo(1);
+      assertThat(cache.get(IdKey.donor("D2", "PRJ-XX")).isPresent()).isFalse();
+      cache.put(IdKey.donor("D3", "PRJ-XX"), "DO3");
+    }
+
+    @Cleanup
+    val reloaded = new PersistentIdCache(file, SERVICE_URL);
+    assertThat(reloaded.get(IdKey.donor("D1", "PRJ-XX")).orElse(null)).isEqualTo("DO1");
+    assertThat(reloaded.get(IdKey.donor("D2", "PRJ-XX")).isPresent()).isFalse();
+    assertThat(reloaded.get(IdKey.donor("D3", "PRJ-XX")).orElse(null)).isEqualTo("DO3");
+  }
+
+  @Test(expected = IllegalStateException.class)
+  public void testOtherService() throws Exception {
+    val file = new File(tmp.getRoot(), "ids.log");
+    try (val cache = new PersistentIdCache(file, SERVICE_URL)) {
+      cache.put(IdKey.donor("D1", "PRJ-XX"), "DO1");
+    }
+
+    new PersistentIdCache(file, "https://other.example.org");
+  }
+
+}
@@ -0,0 +1,169 @@
+/*
+ * Copyright (c) 2016 The Ontario Institute for Cancer Research. All rights reserved.
+ *                                                                                                               
+ * This program and the accompanying materials are made available under the terms of the GNU Public License v3.0.
+ * You should have received a copy of the GNU General Public License along with                                  
+ * this program. If not, see <http://www.gnu.org/licenses/>.                                                     
+ *                                                                                                               
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY                           
+ * EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES                          
+ * OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT                           
+ * SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT,                                
+ * INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED                          
+ * TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS;                               
+ * OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER                              
+ * IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN                         
+ * ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.icgc.dcc.repository.core.meta;
+
+import static java.util.concurrent.TimeUnit.DAYS;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.icgc.dcc.common.core.json.Jackson.DEFAULT;
+
+import java.io.File;
+
+import org.icgc.dcc.common.core.meta.Resolver.CodeListsResolver;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.fasterxml.jackson.databind.node.ArrayNode;
+
+import lombok.val;
+
+public class CodeListCacheTest {
+
+  /**
+   * Constants.
+   */
+  private static final long TTL_MS = DAYS.toMillis(1);
+
+  @Rule
+  public TemporaryFolder tmp = new TemporaryFolder();
+
+  @Test
+  public void testFetchesOncePerTtl() {
+    val resolver = new StubCodeListsResolver(codeLists("a", "1"));
+    val cache = new CodeListCache(resolver, null, TTL_MS);
+
+    assertThat(getValue(cache, "a")).isEqualTo("1");
+    assertThat(getValue(cache, "a")).isEqualTo("1");
+    assertThat(cache.get("b").isPresent()).isFalse();
+    assertThat(resolver.count).isEqualTo(1);
+  }
+
+  @Test
+  public void testRefetchesWhenExpired() {
+    val resolver = new StubCodeListsResolver(codeLists("a", "1"));
+    val cache = new CodeListCache(resolver, null, 0);
+
+    cache.get("a");
+    resolver.codeLists = codeLists("a", "2");
+
+    assertThat(getValue(cache, "a")).isEqualTo("2");
+    assertThat(resolver.count).isEqualTo(2);
+  }
+
+  @Test
+  public void testKeepsCurrentWhenRefreshFails() {
+    val resolver = new StubCodeListsResolver(codeLists("a", "1"));
+    val cache = new CodeListCache(resolver, null, 0);
+
+    cache.get("a");
+    resolver.failure = new IllegalStateException("Service down");
+
+    assertThat(getValue(cache, "a")).isEqualTo("1");
+  }
+
+  @Test
+  public void testReadsFreshFile() {
+    val file = new File(tmp.getRoot(), "code-lists.json");
+    new CodeListCache(new StubCodeListsResolver(codeLists("a", "1")), file, TTL_MS).get("a");
+
+    val resolver = new StubCodeListsResolver(codeLists("a", "2"));
+    val cache = new CodeListCache(resolver, file, TTL_MS);
+
+    assertThat(getValue(cache, "a")).isEqualTo("1");
+    assertThat(resolver.count).isEqualTo(0);
+  }
+
+  @Test
+  public void testFallsBackToStaleFile() {
+    val file = new File(tmp.getRoot(), "code-lists.json");
+    new CodeListCache(new StubCodeListsResolver(codeLists("a", "1")), file, TTL_MS).get("a");
+    assertThat(file.setLastModified(System.currentTimeMillis() - 2 * TTL_MS)).isTrue();
+
+    val resolver = new StubCodeListsResolver(codeLists("a", "2"));
+    resolver.failure = new IllegalStateException("Service down");
+    val cache = new CodeListCache(resolver, file, TTL_MS);
+
+    assertThat(getValue(cache, "a")).isEqualTo("1");
+    assertThat(resolver.count).isEqualTo(1);
+  }
+
+  @Test(expected = IllegalStateException.class)
+  public void testFailsWithoutFile() {
+    val resolver = new StubCodeListsResolver(codeLists("a", "1"));
+    resolver.failure = new IllegalStateException("Service down");
+
+    new CodeListCache(resolver, new File(tmp.getRoot(), "missing.json"), TTL_MS).get("a");
+  }
+
+  @Test
+  public void testReplacesFileAtomically() throws Exception {
+    val file = new File(tmp.getRoot(), "code-lists.json");
+    new CodeListCache(new StubCodeListsResolver(codeLists("a", "1")), file, TTL_MS).get("a");
+    assertThat(file.setLastModified(System.currentTimeMillis() - 2 * TTL_MS)).isTrue();
+
+    new CodeListCache(new StubCodeListsResolver(codeLists("a", "2")), file, TTL_MS).get("a");
+
+    assertThat(new File(tmp.getRoot(), "code-lists.json.tmp")).doesNotExist();
+    assertThat(tmp.getRoot().list()).containsOnly("code-lists.json");
+    assertThat(DEFAULT.readValue(file, ArrayNode.class)).isEqualTo(codeLists("a", "2"));
+  }
+
+  @Test
+  public void testKeepsFirstDuplicate() {
+    val codeLists = codeLists("a", "1");
+    codeLists.addAll(codeLists("a", "2"));
+    val cache = new CodeListCache(new StubCodeListsResolver(codeLists), null, TTL_MS);
+
+    assertThat(getValue(cache, "a")).isEqualTo("1");
+  }
+
+  private static String getValue(CodeListCache cache, String name) {
+    return cache.get(name).get().path("terms").path(0).path("value").textValue();
+  }
+
+  private static ArrayNode codeLists(String name, String value) {
+    val codeLists = DEFAULT.createArrayNode();
+    val codeList = codeLists.addObject().put("name", name);
+    codeList.putArray("terms").addObject().put("code", value).put("value", value);
+
+    return codeLists;
+  }
+
+  private static class StubCodeListsResolver implements CodeListsResolver {
+
+    private ArrayNode codeLists;
+    private RuntimeException failure;
+    private int count;
+
+    private StubCodeListsResolver(ArrayNode codeLists) {
+      this.codeLists = codeLists;
+    }
+
+    @Override
+    public ArrayNode get() {
+      count++;
+      if (failure != null) {
+        throw failure;
+      }
+
+      return codeLists;
+    }
+
+  }
+
+}
@@ -0,0 +1,127 @@
+/*
+ * Copyright (c) 2016 The Ontario Institute for Cancer Research. All rights reserved.
+ *                                                                                                               
+ * This program and the accompanying materials are made available under the terms of the GNU Public License v3.0.
+ * You should have received a copy of the GNU General Public License along with                                  
+ * this program. If not, see <http://www.gnu.org/licenses/>.                                                     
+ *                                                                                                               
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY                           
+ * EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES                          
+ * OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT                           
+ * SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT,                                
+ * INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED                          
+ * TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS;                               
+ * OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER                              
+ * IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN                         
+ * ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.icgc.dcc.repository.core.tcga;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.entry;
+
+import java.io.File;
+import java.util.Map;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+
+import lombok.val;
+
+public class CompactTCGAMappingsTest {
+
+  /**
+   * Constants.
+   */
+  private static final String UUID1 = "0a1b2c3d-4e5f-4a6b-8c7d-9e0f1a2b3c4d";
+  private static final String UUID2 = "f0e1d2c3-b4a5-4968-8776-655443322110";
+  private static final String UUID3 = "7c2a9a3e-1f44-4b5e-9f0d-2b1c3d4e5f60";
+  private static final String BARCODE1 = "TCGA-02-0001-01C-01D-0182-01";
+  private static final String BARCODE2 = "TCGA-02-0001";
+  private static final String BARCODE3 = "TCGA-ZZ-9999-10A";
+  private static final Map<String, String> MAPPINGS =
+      ImmutableMap.of(UUID1, BARCODE1, UUID2, BARCODE2, UUID3, BARCODE3);
+
+  @Rule
+  public TemporaryFolder tmp = new TemporaryFolder();
+
+  @Test
+  public void testLookups() {
+    val mappings = CompactTCGAMappings.of(MAPPINGS);
+
+    assertThat(mappings.size()).isEqualTo(3);
+    for (val mapping : MAPPINGS.entrySet()) {
+      assertThat(mappings.getBarcode(mapping.getKey())).isEqualTo(mapping.getValue());
+      assertThat(mappings.getUUID(mapping.getValue())).isEqualTo(mapping.getKey());
+    }
+  }
+
+  @Test
+  public void testMisses() {
+    val mappings = CompactTCGAMappings.of(MAPPINGS);
+
+    assertThat(mappings.getBarcode("00000000-0000-0000-0000-000000000000")).isNull();
+    assertThat(mappings.getBarcode("not-a-uuid")).isNull();
+    assertThat(mappings.getUUID("TCGA-02-0002")).isNull();
+    assertThat(mappings.getUUID("TCGA-02-000")).isNull(); // Prefix of an existing barcode
+    assertThat(mappings.getUUID("")).isNull();
+  }
+
+  @Test
+  public void testSkipsInvalidMappings() {
+    val mappings = CompactTCGAMappings.of(ImmutableMap.of(UUID1, BARCODE1, "not-a-uuid", BARCODE2));
+
+    assertThat(mappings.size()).isEqualTo(1);
+    assertThat(mappings.getUUID(BARCODE2)).isNull();
+  }
+
+  @Test
+  public void testEmpty() {
+    val mappings = CompactTCGAMappings.of(ImmutableMap.of());
+
+    assertThat(mappings.size()).isEqualTo(0);
+    assertThat(mappings.getBarcode(UUID1)).isNull();
+    assertThat(mappings.getUUID(BARCODE1)).isNull();
+  }
+
+  @Test
+  public void testBatchLookups() {
+    val mappings = CompactTCGAMappings.of(MAPPINGS);
+
+    assertThat(mappings.getBarcodes(ImmutableSet.of(UUID1, UUID3, "00000000-0000-0000-0000-000000000000")))
+        .containsOnly(entry(UUID1, BARCODE1), entry(UUID3, BARCODE3));
+    assertThat(mappings.getUUIDs(ImmutableSet.of(BARCODE2, "TCGA-02-0002")))
+        .containsOnly(entry(BARCODE2, UUID2));
+  }
+
+  @Test
+  public void testWriteRead() {
+    val file = new File(tmp.getRoot(), "tcga-mappings.bin");
+    val mappings = CompactTCGAMappings.of(MAPPINGS);
+    mappings.write(file);
+
+    val read = CompactTCGAMappings.read(file);
+
+    assertThat(new File(tmp.getRoot(), "tcga-mappings.bin.tmp")).doesNotExist();
+    assertThat(read.size()).isEqualTo(mappings.size());
+    assertThat(read.fingerprint()).isEqualTo(mappings.fingerprint());
+    for (val mapping : MAPPINGS.entrySet()) {
+      assertThat(read.getBarcode(mapping.getKey())).isEqualTo(mapping.getValue());
+      assertThat(read.getUUID(mapping.getValue())).isEqualTo(mapping.getKey());
+    }
+  }
+
+  @Test
+  public void testFingerprint() {
+    val mappings = CompactTCGAMappings.of(MAPPINGS);
+
+    assertThat(CompactTCGAMappings.of(ImmutableMap.copyOf(MAPPINGS)).fingerprint()).isEqualTo(mappings.fingerprint());
+    assertThat(CompactTCGAMappings.of(ImmutableMap.of(UUID1, BARCODE1)).fingerprint())
+        .isNotEqualTo(mappings.fingerprint());
+  }
+
+}
@@ -0,0 +1,85 @@
+/*
+ * Copyright (c) 2016 The Ontario Institute for Cancer Research. All rights reserved.
+ *                                                                                                               
+ * This program and the accompanying materials are made available under the terms of the GNU Public License v3.0.
+ * You should have received a copy of the GNU General Public License along with                                  
+ * this program. If not, see <http://www.gnu.org/licenses/>.                                                     
+ *                                                                                                               
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY                           
+ * EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES                          
+ * OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT                           
+ * SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT,                                
+ * INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED                          
+ * TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS;                               
+ * OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER                              
+ * IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN                         
+ * ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.icgc.dcc.repository.core.util;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.Test;
+
+import com.google.common.collect.ImmutableSet;
+
+import lombok.val;
+
+public class QualifiedDonorIdsTest {
+
+  @Test
+  public void testContains() {
+    val donorIds = QualifiedDonorIds.of(ImmutableSet.of("PRJ-XX:D1", "PRJ-XX:D2", "PRJ-YY:D1"));
+
+    assertThat(donorIds.contains("PRJ-XX", "D1")).isTrue();
+    assertThat(donorIds.contains("PRJ-XX", "D2")).isTrue();
+    assertThat(donorIds.contains("PRJ-YY", "D1")).isTrue();
+    assertThat(donorIds.contains("PRJ-YY", "D2")).isFalse();
+    assertThat(donorIds.contains("PRJ-ZZ", "D1")).isFalse();
+  }
+
+  @Test
+  public void testNulls() {
+    val donorIds = QualifiedDonorIds.of(ImmutableSet.of("PRJ-XX:D1", "null:D2"));
+
+    assertThat(donorIds.contains(null, "D1")).isFalse();
+    assertThat(donorIds.contains("PRJ-XX", null)).isFalse();
+    assertThat(donorIds.contains(null, null)).isFalse();
+
+    // Ids qualified with a null project code are looked up as such
+    assertThat(donorIds.contains(null, "D2")).isFalse();
+    assertThat(donorIds.contains("null", "D2")).isTrue();
+  }
+
+  @Test
+  public void testMalformed() {
+    val donorIds = QualifiedDonorIds.of(ImmutableSet.of("D1", ":D2", "PRJ-XX:", "PRJ-XX:D3:X"));
+
+    assertThat(donorIds.contains("", "D1")).isFalse();
+    assertThat(donorIds.contains("D1", "")).isFalse();
+    assertThat(donorIds.contains("", "D2")).isTrue();
+    assertThat(donorIds.contains("PRJ-XX", "")).isTrue();
+
+    // Only the first separator delimits the project code
+    assertThat(donorIds.contains("PRJ-XX", "D3:X")).isTrue();
+    assertThat(donorIds.contains("PRJ-XX", "D3")).isFalse();
+  }
+
+  @Test
+  public void testEmpty() {
+    val donorIds = QualifiedDonorIds.of(ImmutableSet.of());
+
+    assertThat(donorIds.contains("PRJ-XX", "D1")).isFalse();
+  }
+
+  @Test
+  public void testFingerprint() {
+    val donorIds = QualifiedDonorIds.of(ImmutableSet.of("PRJ-XX:D1", "PRJ-YY:D2"));
+
+    assertThat(QualifiedDonorIds.of(ImmutableSet.of("PRJ-YY:D2", "PRJ-XX:D1")).fingerprint())
+        .isEqualTo(donorIds.fingerprint());
+    assertThat(QualifiedDonorIds.of(ImmutableSet.of("PRJ-XX:D1")).fingerprint())
+        .isNotEqualTo(donorIds.fingerprint());
+  }
+
+}
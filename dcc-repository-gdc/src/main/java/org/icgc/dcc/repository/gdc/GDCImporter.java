@@ -17,10 +17,17 @@
  */
 package org.icgc.dcc.repository.gdc;
 
+import static java.time.ZoneOffset.UTC;
+import static java.time.format.DateTimeFormatter.ISO_OFFSET_DATE_TIME;
 import static java.util.stream.Collectors.toList;
+import static org.icgc.dcc.common.core.util.Formats.formatCount;
+import static org.icgc.dcc.common.core.util.stream.Collectors.toImmutableSet;
 import static org.icgc.dcc.repository.core.model.Repositories.getGDCRepository;
 import static org.icgc.dcc.repository.core.model.RepositorySource.GDC;
 
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.stream.Stream;
 
 import org.icgc.dcc.common.gdc.client.GDCClient;
@@ -29,37 +36,126 @@ import org.icgc.dcc.repository.core.model.RepositoryFile;
 import org.icgc.dcc.repository.core.util.GenericRepositorySourceFileImporter;
 import org.icgc.dcc.repository.gdc.core.GDCFileProcessor;
 import org.icgc.dcc.repository.gdc.reader.GDCFileReader;
+import org.icgc.dcc.repository.gdc.writer.GDCFileWriter;
 
 import com.fasterxml.jackson.databind.node.ObjectNode;
 
+import lombok.Cleanup;
+import lombok.SneakyThrows;
 import lombok.val;
 import lombok.extern.slf4j.Slf4j;
 
 /**
  * Imports files from GDC.
+ * <p>
+ * In incremental mode only files updated since the watermark of the last successful import are read and merged into
+ * the existing files, and files no longer listed by GDC are removed. Since unchanged GDC files would be created
+ * differently when the inputs outside GDC change (DCC donor ids, TCGA mappings, code lists, repository metadata), a
+ * full import is performed whenever their fingerprint differs from the one of the last import.
  */
 @Slf4j
 public class GDCImporter extends GenericRepositorySourceFileImporter {
 
+  /**
+   * State.
+   */
+  private final AtomicReference<Instant> maxUpdated = new AtomicReference<>();
+
   public GDCImporter(RepositoryFileContext context) {
     super(GDC, context, log);
   }
 
+  @Override
+  @SneakyThrows
+  public void execute() {
+    if (!context.getImportOptions().isGdcIncremental()) {
+      super.execute();
+      return;
+    }
+
+    val started = Instant.now();
+    val fingerprint = new GDCFileProcessor(context, getGDCRepository()).fingerprintInputs();
+
+    @Cleanup
+    val writer = new GDCFileWriter(context.getMongoUri());
+    val watermark = writer.getWatermark();
+    if (watermark == null) {
+      log.info("No GDC watermark found, importing all files...");
+      super.execute();
+    } else if (!fingerprint.equals(writer.getFingerprint())) {
+      log.info("GDC import inputs changed since the last import, importing all files...");
+      super.execute();
+    } else {
+      executeIncremental(writer, watermark);
+    }
+
+    // Files updated while reading may have been listed before their update, so never advance beyond the start
+    val updated = maxUpdated.get();
+    val newWatermark = updated == null ? watermark : formatWatermark(updated.isAfter(started) ? started : updated);
+    if (newWatermark != null) {
+      log.info("Saving GDC watermark '{}'", newWatermark);
+      writer.saveWatermark(newWatermark, fingerprint);
+    }
+  }
+
   @Override
   protected Iterable<RepositoryFile> readFiles() {
+    return streamFiles().collect(toList());
+  }
+
+  @Override
+  protected Stream<RepositoryFile> streamFiles() {
     val client = new GDCClient();
     val files = readFiles(client);
-    val results = processFiles(files);
 
-    return results.collect(toList());
+    return processFiles(files);
+  }
+
+  private void executeIncremental(GDCFileWriter writer, String watermark) {
+    val reader = new GDCFileReader(new GDCClient(), context.getImportOptions().getGdcConcurrency());
+
+    log.info("Reading GDC files updated since '{}'...", watermark);
+    @Cleanup
+    val changedFiles = processFiles(reader.readFilesUpdatedSince(watermark).peek(this::observe));
+    val files = changedFiles.collect(toList());
+    writer.merge(files);
+
+    log.info("Listing GDC file ids...");
+    val objectIds = reader.readFileIds().map(GDCFileProcessor::resolveFileObjectId).collect(toImmutableSet());
+    if (objectIds.isEmpty()) {
+      // Never mistake an empty or failed listing for the deletion of everything
+      log.warn("No GDC file ids listed, skipping removal of deleted files");
+    } else {
+      writer.retain(objectIds);
+    }
+
+    log.info("Merged {} changed '{}' files", formatCount(files), source);
   }
 
   private Stream<ObjectNode> readFiles(GDCClient client) {
-    return new GDCFileReader(client).readFiles();
+    return new GDCFileReader(client, context.getImportOptions().getGdcConcurrency()).readFiles().peek(this::observe);
   }
 
   private Stream<RepositoryFile> processFiles(Stream<ObjectNode> files) {
     return new GDCFileProcessor(context, getGDCRepository()).process(files);
   }
 
+  private void observe(ObjectNode file) {
+    observe(file.path("updated_datetime").textValue());
+    observe(file.path("analysis").path("updated_datetime").textValue());
+  }
+
+  private void observe(String updatedDatetime) {
+    if (updatedDatetime == null) {
+      return;
+    }
+
+    val updated = Instant.from(ISO_OFFSET_DATE_TIME.parse(updatedDatetime));
+    maxUpdated.accumulateAndGet(updated, (a, b) -> a == null || b.isAfter(a) ? b : a);
+  }
+
+  private static String formatWatermark(Instant updated) {
+    return ISO_OFFSET_DATE_TIME.format(OffsetDateTime.ofInstant(updated, UTC));
+  }
+
 }
@@ -17,8 +17,12 @@
  */
 package org.icgc.dcc.repository.gdc.core;
 
+import static java.nio.charset.StandardCharsets.UTF_8;
 import static java.time.format.DateTimeFormatter.ISO_OFFSET_DATE_TIME;
 import static java.util.Collections.singleton;
+import static java.util.Spliterator.ORDERED;
+import static java.util.Spliterators.spliteratorUnknownSize;
+import static java.util.stream.Collectors.toList;
 import static org.icgc.dcc.common.core.util.Formats.formatCount;
 import static org.icgc.dcc.common.gdc.core.GDCFiles.getAccess;
 import static org.icgc.dcc.common.gdc.core.GDCFiles.getAliquotId;
@@ -53,11 +57,15 @@ import static org.icgc.dcc.common.gdc.core.GDCFiles.getSampleSubmitterId;
 import static org.icgc.dcc.common.gdc.core.GDCFiles.getUpdatedDatetime;
 import static org.icgc.dcc.common.gdc.core.GDCProjects.getProjectCode;
 import static org.icgc.dcc.repository.core.model.RepositoryProjects.getProjectByProjectCode;
+import static org.icgc.dcc.repository.core.util.ForkJoinPools.invoke;
 
 import java.time.Instant;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 import org.icgc.dcc.repository.core.RepositoryFileContext;
 import org.icgc.dcc.repository.core.RepositoryFileProcessor;
@@ -69,8 +77,12 @@ import org.icgc.dcc.repository.core.model.RepositoryFile.ReferenceGenome;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.node.ObjectNode;
 import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Iterators;
 import com.google.common.collect.Lists;
+import com.google.common.collect.Ordering;
+import com.google.common.hash.Hashing;
 
+import lombok.Getter;
 import lombok.NonNull;
 import lombok.val;
 import lombok.extern.slf4j.Slf4j;
@@ -88,6 +100,7 @@ public class GDCFileProcessor extends RepositoryFileProcessor {
    */
   private static final String SEQUENCING_STRATEGY_CODE_LIST_NAME = "GLOBAL.0.sequencing_strategy.v1";
   private static final String EXCLUDED_EXPERIMENTAL_STRATEGY = "non-NGS";
+  private static final int PARALLEL_BATCH_SIZE = 1000;
 
   /**
    * Metadata.
@@ -99,7 +112,7 @@ public class GDCFileProcessor extends RepositoryFileProcessor {
   /**
    * State.
    */
-  private int fileCount = 0;
+  private final AtomicInteger fileCount = new AtomicInteger();
 
   public GDCFileProcessor(RepositoryFileContext context, @NonNull Repository gdcRepository) {
     super(context);
@@ -108,9 +121,55 @@ public class GDCFileProcessor extends RepositoryFileProcessor {
   }
 
   public Stream<RepositoryFile> process(Stream<ObjectNode> files) {
+    val parallelism = context.getImportOptions().getGdcParallelism();
+    if (parallelism > 1) {
+      return processParallel(files, parallelism);
+    }
+
     return files.map(this::createFile).filter(this::isIncluded);
   }
 
+  /**
+   * @return a hash of the inputs outside GDC that shape the created files, so that an incremental import can tell when
+   * unchanged GDC files would now be created differently
+   */
+  public String fingerprintInputs() {
+    return Hashing.md5().newHasher()
+        .putString(context.getReferenceFingerprint(), UTF_8)
+        .putString(Ordering.natural().sortedCopy(experimentalStrategies).toString(), UTF_8)
+        .putString(gdcRepository.toString(), UTF_8)
+        .hash().toString();
+  }
+
+  /**
+   * @return the object id of the repository file created for the GDC file with {@code fileId}
+   */
+  public static String resolveFileObjectId(@NonNull String fileId) {
+    return resolveObjectId(fileId);
+  }
+
+  /**
+   * Maps {@code files} in chunks of {@link #PARALLEL_BATCH_SIZE} on a dedicated pool of {@code parallelism} workers,
+   * preserving their order. Chunks are pulled as the result is consumed so that only the current one is held in
+   * memory. The context is safe for concurrent id resolution and donor lookups.
+   * <p>
+   * The pool is shut down when the returned stream is closed.
+   */
+  private Stream<RepositoryFile> processParallel(Stream<ObjectNode> files, int parallelism) {
+    log.info("Processing GDC files with parallelism {}...", parallelism);
+    val pool = new ForkJoinPool(parallelism);
+    val batches = Iterators.partition(files.iterator(), PARALLEL_BATCH_SIZE);
+
+    return StreamSupport.stream(spliteratorUnknownSize(batches, ORDERED), false)
+        .map(batch -> invoke(pool, () -> batch.parallelStream()
+            .map(this::createFile)
+            .filter(this::isIncluded)
+            .collect(toList())))
+        .flatMap(List::stream)
+        .onClose(pool::shutdown)
+        .onClose(files::close);
+  }
+
   private RepositoryFile createFile(ObjectNode file) {
     val dataType = resolveDataType(file);
     if (dataType == null) {
@@ -176,6 +235,7 @@ public class GDCFileProcessor extends RepositoryFileProcessor {
       break;
     }
 
+    val matched = isMatchedDataType(dataType);
     for (val caze : getCases(file)) {
       val projectCode = resolveProjectCode(caze);
       val project = getProjectByProjectCode(projectCode).orNull();
@@ -186,6 +246,7 @@ public class GDCFileProcessor extends RepositoryFileProcessor {
         continue;
       }
 
+      val biospecimens = new CaseBiospecimens(caze, matched);
       gdcFile.addDonor()
           .setPrimarySite(resolvePrimarySite(caze, projectCode))
           .setProgram(project.getProgram())
@@ -193,16 +254,16 @@ public class GDCFileProcessor extends RepositoryFileProcessor {
           .setStudy(null) // N/A
           .setDonorId(null) // Set downstream
           .setSpecimenId(null) // Set downstream
-          .setSpecimenType(resolveSpecimenType(caze, dataType))
-          .setMatchedControlSampleId(resolveMatchedControlSampleId(caze, dataType))
+          .setSpecimenType(biospecimens.getSpecimenTypes())
+          .setMatchedControlSampleId(biospecimens.getMatchedControlSampleId())
           .setSampleId(null) // Set downstream
           .setSubmittedDonorId(submittedDonorId)
-          .setSubmittedSpecimenId(resolveSubmitterSpecimenId(caze, dataType))
-          .setSubmittedSampleId(resolveSubmitterSampleId(caze, dataType))
+          .setSubmittedSpecimenId(biospecimens.getSubmitterSpecimenIds())
+          .setSubmittedSampleId(biospecimens.getSubmitterSampleIds())
           .setOtherIdentifiers(new OtherIdentifiers()
               .setTcgaParticipantBarcode(resolveTcgaParticipantBarcode(caze))
-              .setTcgaSampleBarcode(resolveTcgaSampleBarcode(caze, dataType))
-              .setTcgaAliquotBarcode(resolveTcgaAliquotBarcode(caze, dataType)));
+              .setTcgaSampleBarcode(biospecimens.getTcgaSampleBarcodes())
+              .setTcgaAliquotBarcode(biospecimens.getTcgaAliquotBarcodes()));
 
     }
 
@@ -215,8 +276,9 @@ public class GDCFileProcessor extends RepositoryFileProcessor {
     assignStudy(singleton(gdcFile));
     assignIds(singleton(gdcFile));
 
-    if (++fileCount % 1000 == 0) {
-      log.info("Processed {} files", formatCount(fileCount));
+    val count = fileCount.incrementAndGet();
+    if (count % 1000 == 0) {
+      log.info("Processed {} files", formatCount(count));
     }
 
     return gdcFile;
@@ -384,121 +446,80 @@ public class GDCFileProcessor extends RepositoryFileProcessor {
     return getCaseId(caze);
   }
 
-  private static List<String> resolveSubmitterSpecimenId(JsonNode caze, String dataType) {
-    val submitterSpecimenId = Lists.<String> newArrayList();
-    for (val sample : getCaseSamples(caze)) {
-      val sampleType = getCaseSampleType(sample);
-
-      if (isPrimaryBiospecimen(dataType, sampleType)) {
-        submitterSpecimenId.add(getCaseSampleId(sample));
-      }
-    }
-
-    return submitterSpecimenId;
-  }
-
-  private static List<String> resolveSpecimenType(JsonNode caze, String dataType) {
-    val specimenType = Lists.<String> newArrayList();
-    for (val sample : getCaseSamples(caze)) {
-      val sampleType = getCaseSampleType(sample);
-
-      if (isPrimaryBiospecimen(dataType, sampleType)) {
-        specimenType.add(sampleType);
-      }
-    }
-
-    return specimenType;
+  private static String resolveTcgaParticipantBarcode(JsonNode caze) {
+    return getAliquotSubmitterId(caze);
   }
 
-  private static String resolveMatchedControlSampleId(JsonNode caze, String dataType) {
-    for (val sample : getCaseSamples(caze)) {
-      val sampleType = getCaseSampleType(sample);
-
-      if (isPrimaryBiospecimen(dataType, sampleType) == false) {
-        for (val portion : getSamplePortions(sample)) {
-          for (val analyte : getPortionAnalytes(portion)) {
-            for (val aliquot : getAnalyteAliquots(analyte)) {
-              // JJ: at the inner most level, the aliquot should be just one so return first one should be safe. this is
-              // because, one VCF can only associate with one tumour aliquot (or one normal aliquot)
-
-              // This is a barcode so that we can convert it to an ICGC id "Downstream"
-              return getAliquotSubmitterId(aliquot);
-            }
-          }
-        }
-      }
-    }
-
-    return null;
+  /**
+   * @return {@code true} if files of {@code dataType} are called against a matched control, so that normal samples are
+   * not primary biospecimens
+   */
+  static boolean isMatchedDataType(String dataType) {
+    return endsWithIgnoreCase(dataType, "variation") || endsWithIgnoreCase(dataType, "mutation");
   }
 
-  private static List<String> resolveSubmitterSampleId(JsonNode caze, String dataType) {
-    val submitterSampleId = Lists.<String> newArrayList();
-    for (val sample : getCaseSamples(caze)) {
-      val sampleType = getCaseSampleType(sample);
-
-      if (isPrimaryBiospecimen(dataType, sampleType)) {
-        for (val portion : getSamplePortions(sample)) {
-          for (val analyte : getPortionAnalytes(portion)) {
-            for (val aliquot : getAnalyteAliquots(analyte)) {
-              submitterSampleId.add(getAliquotId(aliquot));
-            }
-          }
-        }
-      }
-    }
-
-    return submitterSampleId;
+  private static boolean isPrimaryBiospecimen(boolean matched, String sampleType) {
+    return !matched || !containsIgnoreCase(sampleType, "normal");
   }
 
-  private static String resolveTcgaParticipantBarcode(JsonNode caze) {
-    return getAliquotSubmitterId(caze);
+  private static boolean endsWithIgnoreCase(String text, String suffix) {
+    return text.regionMatches(true, text.length() - suffix.length(), suffix, 0, suffix.length());
   }
 
-  private static List<String> resolveTcgaSampleBarcode(JsonNode caze, String dataType) {
-    val tcgaSampleBarcode = Lists.<String> newArrayList();
-    for (val sample : getCaseSamples(caze)) {
-      val sampleType = getCaseSampleType(sample);
-
-      if (isPrimaryBiospecimen(dataType, sampleType)) {
-        tcgaSampleBarcode.add(getSampleSubmitterId(sample));
+  private static boolean containsIgnoreCase(String text, String part) {
+    for (int i = 0; i <= text.length() - part.length(); i++) {
+      if (text.regionMatches(true, i, part, 0, part.length())) {
+        return true;
       }
     }
 
-    return tcgaSampleBarcode;
+    return false;
   }
 
-  private static List<String> resolveTcgaAliquotBarcode(JsonNode caze, String dataType) {
-    val tcgaAliquotBarcode = Lists.<String> newArrayList();
-    for (val sample : getCaseSamples(caze)) {
-      val sampleType = getCaseSampleType(sample);
+  /**
+   * Biospecimen fields of a case donor, collected in a single walk of its sample, portion, analyte and aliquot tree.
+   */
+  @Getter
+  static class CaseBiospecimens {
+
+    private final List<String> submitterSpecimenIds = Lists.newArrayList();
+    private final List<String> specimenTypes = Lists.newArrayList();
+    private final List<String> submitterSampleIds = Lists.newArrayList();
+    private final List<String> tcgaSampleBarcodes = Lists.newArrayList();
+    private final List<String> tcgaAliquotBarcodes = Lists.newArrayList();
+    private String matchedControlSampleId;
+
+    CaseBiospecimens(JsonNode caze, boolean matched) {
+      for (val sample : getCaseSamples(caze)) {
+        val sampleType = getCaseSampleType(sample);
+        val primary = isPrimaryBiospecimen(matched, sampleType);
+        if (primary) {
+          submitterSpecimenIds.add(getCaseSampleId(sample));
+          specimenTypes.add(sampleType);
+          tcgaSampleBarcodes.add(getSampleSubmitterId(sample));
+        } else if (matchedControlSampleId != null) {
+          continue;
+        }
 
-      if (isPrimaryBiospecimen(dataType, sampleType)) {
         for (val portion : getSamplePortions(sample)) {
           for (val analyte : getPortionAnalytes(portion)) {
             for (val aliquot : getAnalyteAliquots(analyte)) {
-              tcgaAliquotBarcode.add(getAliquotSubmitterId(aliquot));
+              if (primary) {
+                submitterSampleIds.add(getAliquotId(aliquot));
+                tcgaAliquotBarcodes.add(getAliquotSubmitterId(aliquot));
+              } else if (matchedControlSampleId == null) {
+                // JJ: at the inner most level, the aliquot should be just one so taking the first one should be safe.
+                // this is because, one VCF can only associate with one tumour aliquot (or one normal aliquot)
+
+                // This is a barcode so that we can convert it to an ICGC id "Downstream"
+                matchedControlSampleId = getAliquotSubmitterId(aliquot);
+              }
             }
           }
         }
       }
     }
 
-    return tcgaAliquotBarcode;
-  }
-
-  private static boolean isPrimaryBiospecimen(String dataType, String sampleType) {
-    val matched = dataType.toLowerCase().endsWith("variation") || dataType.toLowerCase().endsWith("mutation");
-    if (!matched) {
-      return true;
-    }
-
-    val control = sampleType.toLowerCase().contains("normal");
-    if (!control) {
-      return true;
-    }
-
-    return false;
   }
 
 }
@@ -17,30 +17,50 @@
  */
 package org.icgc.dcc.repository.gdc.reader;
 
+import static java.util.Spliterator.ORDERED;
+import static java.util.Spliterators.spliteratorUnknownSize;
+import static org.icgc.dcc.common.core.json.Jackson.DEFAULT;
 import static org.icgc.dcc.common.core.json.JsonNodeBuilders.array;
 import static org.icgc.dcc.common.core.json.JsonNodeBuilders.object;
 import static org.icgc.dcc.common.gdc.client.GDCClient.Query.query;
+import static org.icgc.dcc.common.core.util.Formats.formatCount;
 import static org.icgc.dcc.common.gdc.core.GDCProjects.getProjectsIds;
 
+import java.io.Closeable;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
 import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 import org.icgc.dcc.common.gdc.client.GDCClient;
 import org.icgc.dcc.common.gdc.client.GDCClient.Query;
+import org.icgc.dcc.common.gdc.core.GDCFiles;
 import org.icgc.dcc.common.gdc.reader.GDCReader;
 
 import com.fasterxml.jackson.databind.node.ObjectNode;
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 
 import lombok.NonNull;
 import lombok.RequiredArgsConstructor;
+import lombok.SneakyThrows;
 import lombok.val;
+import lombok.extern.slf4j.Slf4j;
 
 /**
  * Reads filtered GDC file records with the appropriate set of fields for downstream processing.
  * 
  * @see https://wiki.oicr.on.ca/pages/viewpage.action?pageId=66946440
  */
+@Slf4j
 @RequiredArgsConstructor
 public class GDCFileReader {
 
@@ -102,18 +122,167 @@ public class GDCFileReader {
   @NonNull
   private final GDCClient client;
 
+  /**
+   * Configuration.
+   */
+  private final int concurrency;
+
+  public GDCFileReader(GDCClient client) {
+    this(client, 1);
+  }
+
   public Stream<ObjectNode> readFiles() {
+    return readFiles(PROJECT_FILTER);
+  }
+
+  /**
+   * Reads the files that were updated, or whose analysis was updated, at or after {@code updatedDatetime}.
+   */
+  public Stream<ObjectNode> readFilesUpdatedSince(@NonNull String updatedDatetime) {
+    val updated = DEFAULT.createObjectNode().put("op", "or");
+    updated.putArray("content")
+        .add(createSinceFilter("updated_datetime", updatedDatetime))
+        .add(createSinceFilter("analysis.updated_datetime", updatedDatetime));
+
+    val filters = DEFAULT.createObjectNode().put("op", "and");
+    filters.putArray("content")
+        .add(PROJECT_FILTER)
+        .add(updated);
+
+    return readFiles(filters);
+  }
+
+  /**
+   * Lists the ids of all current files, e.g. to detect deletions after an incremental read.
+   */
+  public Stream<String> readFileIds() {
     val query = query()
         .size(PAGE_SIZE)
-        .fields(FIELD_NAMES)
+        .fields(ImmutableList.of("file_id"))
         .filters(PROJECT_FILTER)
         .build();
 
-    return readFiles(query);
+    return readFiles(query).map(GDCFiles::getFileId);
   }
 
   public Stream<ObjectNode> readFiles(Query query) {
     return new GDCReader(client::getFiles).read(query);
   }
 
+  /**
+   * Reads the first page to learn the total hit count, then the remaining pages with up to {@code concurrency}
+   * requests in flight. Pages are emitted in order.
+   */
+  private Stream<ObjectNode> readFiles(ObjectNode filters) {
+    if (concurrency > 1) {
+      return readFilesConcurrently(filters);
+    }
+
+    return readFiles(createQuery(filters, null));
+  }
+
+  private Stream<ObjectNode> readFilesConcurrently(ObjectNode filters) {
+    val first = client.getFiles(createQuery(filters, null));
+    val pagination = first.getPagination();
+
+    val start = pagination.getFrom();
+    val end = start + pagination.getTotal();
+    val offsets = Lists.<Integer> newArrayList();
+    for (int from = start + PAGE_SIZE; from < end; from += PAGE_SIZE) {
+      offsets.add(from);
+    }
+
+    log.info("Reading {} GDC files in {} pages with concurrency {}...", formatCount(pagination.getTotal()),
+        offsets.size() + 1, concurrency);
+    val pages = new PageIterator(filters, offsets);
+
+    return Stream.concat(
+        first.getHits().stream(),
+        StreamSupport.stream(spliteratorUnknownSize(pages, ORDERED), false).flatMap(List::stream))
+        .onClose(pages::close);
+  }
+
+  private static Query createQuery(ObjectNode filters, Integer from) {
+    val query = query()
+        .size(PAGE_SIZE)
+        .fields(FIELD_NAMES)
+        .filters(filters);
+
+    if (from != null) {
+      query.from(from);
+    }
+
+    return query.build();
+  }
+
+  private static ObjectNode createSinceFilter(String field, String updatedDatetime) {
+    return object()
+        .with("op", ">=")
+        .with("content", object()
+            .with("field", field)
+            .with("value", updatedDatetime))
+        .end();
+  }
+
+  /**
+   * Ordered iterator over pages that keeps a bounded window of page requests in flight ahead of the consumer.
+   */
+  private class PageIterator implements Iterator<List<ObjectNode>>, Closeable {
+
+    private final ObjectNode filters;
+    private final Iterator<Integer> offsets;
+    private final Deque<Future<List<ObjectNode>>> inFlight = new ArrayDeque<>();
+    private final ExecutorService executor = Executors.newFixedThreadPool(concurrency,
+        new ThreadFactoryBuilder().setNameFormat("gdc-page-%d").setDaemon(true).build());
+
+    private PageIterator(ObjectNode filters, List<Integer> offsets) {
+      this.filters = filters;
+      this.offsets = offsets.iterator();
+      fill();
+    }
+
+    @Override
+    public boolean hasNext() {
+      if (inFlight.isEmpty()) {
+        close();
+        return false;
+      }
+
+      return true;
+    }
+
+    @Override
+    @SneakyThrows
+    public List<ObjectNode> next() {
+      if (!hasNext()) {
+        throw new NoSuchElementException();
+      }
+
+      try {
+        val page = inFlight.poll().get();
+        fill();
+
+        return page;
+      } catch (ExecutionException e) {
+        close();
+        throw e.getCause();
+      }
+    }
+
+    @Override
+    public void close() {
+      inFlight.forEach(future -> future.cancel(true));
+      inFlight.clear();
+      executor.shutdownNow();
+    }
+
+    private void fill() {
+      while (inFlight.size() < concurrency && offsets.hasNext()) {
+        val from = offsets.next();
+        inFlight.add(executor.submit(() -> client.getFiles(createQuery(filters, from)).getHits()));
+      }
+    }
+
+  }
+
 }
@@ -0,0 +1,114 @@
+/*
+ * Copyright (c) 2016 The Ontario Institute for Cancer Research. All rights reserved.
+ *                                                                                                               
+ * This program and the accompanying materials are made available under the terms of the GNU Public License v3.0.
+ * You should have received a copy of the GNU General Public License along with                                  
+ * this program. If not, see <http://www.gnu.org/licenses/>.                                                     
+ *                                                                                                               
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY                           
+ * EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES                          
+ * OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT                           
+ * SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT,                                
+ * INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED                          
+ * TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS;                               
+ * OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER                              
+ * IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN                         
+ * ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.icgc.dcc.repository.gdc.writer;
+
+import static org.icgc.dcc.common.core.util.Formats.formatCount;
+import static org.icgc.dcc.repository.core.model.RepositorySource.GDC;
+
+import java.util.Set;
+
+import org.icgc.dcc.repository.core.model.RepositoryFile;
+import org.icgc.dcc.repository.core.writer.RepositorySourceFileWriter;
+import org.jongo.MongoCollection;
+
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.google.common.collect.Iterables;
+import com.google.common.collect.Lists;
+import com.mongodb.MongoClientURI;
+
+import lombok.NonNull;
+import lombok.val;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Writes GDC files either in full or as a delta merged by object id, together with the {@code updated_datetime}
+ * watermark of the last successful import and the fingerprint of the non-GDC inputs it was created from.
+ */
+@Slf4j
+public class GDCFileWriter extends RepositorySourceFileWriter {
+
+  /**
+   * Constants.
+   */
+  private static final String STATE_COLLECTION_NAME = "GDCImportState";
+  private static final int REMOVE_BATCH_SIZE = 1000;
+
+  /**
+   * Dependencies.
+   */
+  private final MongoCollection files;
+  private final MongoCollection state;
+
+  public GDCFileWriter(MongoClientURI mongoUri) {
+    super(mongoUri, GDC);
+    this.files = getCollection(getFileCollection());
+    this.state = getCollection(STATE_COLLECTION_NAME);
+  }
+
+  /**
+   * @return the watermark of the last successful import or {@code null} if there was none
+   */
+  public String getWatermark() {
+    val document = state.findOne("{_id: #}", GDC.getId()).as(ObjectNode.class);
+    return document == null ? null : document.path("updatedDatetime").textValue();
+  }
+
+  /**
+   * @return the fingerprint of the inputs of the last successful import or {@code null} if there was none
+   */
+  public String getFingerprint() {
+    val document = state.findOne("{_id: #}", GDC.getId()).as(ObjectNode.class);
+    return document == null ? null : document.path("fingerprint").textValue();
+  }
+
+  public void saveWatermark(@NonNull String updatedDatetime, @NonNull String fingerprint) {
+    state.update("{_id: #}", GDC.getId()).upsert()
+        .with("{$set: {updatedDatetime: #, fingerprint: #}}", updatedDatetime, fingerprint);
+  }
+
+  /**
+   * Inserts or replaces {@code changedFiles} by object id without touching the other files.
+   */
+  public void merge(@NonNull Iterable<RepositoryFile> changedFiles) {
+    files.ensureIndex("{objectId: 1}");
+
+    log.info("Merging {} changed '{}' documents...", formatCount(changedFiles), files.getName());
+    for (val file : changedFiles) {
+      files.update("{objectId: #}", file.getObjectId()).upsert().with(file);
+    }
+  }
+
+  /**
+   * Removes files whose object id is not in {@code objectIds}.
+   */
+  public void retain(@NonNull Set<String> objectIds) {
+    val stale = Lists.<String> newArrayList();
+    for (val file : files.find().projection("{objectId: 1}").as(ObjectNode.class)) {
+      val objectId = file.path("objectId").textValue();
+      if (!objectIds.contains(objectId)) {
+        stale.add(objectId);
+      }
+    }
+
+    log.info("Removing {} deleted '{}' documents...", formatCount(stale), files.getName());
+    for (val batch : Iterables.partition(stale, REMOVE_BATCH_SIZE)) {
+      files.remove("{objectId: {$in: #}}", batch);
+    }
+  }
+
+}
@@ -0,0 +1,238 @@
+/*
+ * Copyright (c) 2016 The Ontario Institute for Cancer Research. All rights reserved.
+ *                                                                                                               
+ * This program and the accompanying materials are made available under the terms of the GNU Public License v3.0.
+ * You should have received a copy of the GNU General Public License along with                                  
+ * this program. If not, see <http://www.gnu.org/licenses/>.                                                     
+ *                                                                                                               
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY                           
+ * EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES                          
+ * OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT                           
+ * SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT,                                
+ * INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED                          
+ * TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS;                               
+ * OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER                              
+ * IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN                         
+ * ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.icgc.dcc.repository.gdc.core;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.icgc.dcc.common.core.json.Jackson.DEFAULT;
+import static org.icgc.dcc.common.gdc.core.GDCFiles.getAliquotId;
+import static org.icgc.dcc.common.gdc.core.GDCFiles.getAliquotSubmitterId;
+import static org.icgc.dcc.common.gdc.core.GDCFiles.getAnalyteAliquots;
+import static org.icgc.dcc.common.gdc.core.GDCFiles.getCaseSampleId;
+import static org.icgc.dcc.common.gdc.core.GDCFiles.getCaseSampleType;
+import static org.icgc.dcc.common.gdc.core.GDCFiles.getCaseSamples;
+import static org.icgc.dcc.common.gdc.core.GDCFiles.getCases;
+import static org.icgc.dcc.common.gdc.core.GDCFiles.getDataType;
+import static org.icgc.dcc.common.gdc.core.GDCFiles.getPortionAnalytes;
+import static org.icgc.dcc.common.gdc.core.GDCFiles.getSamplePortions;
+import static org.icgc.dcc.common.gdc.core.GDCFiles.getSampleSubmitterId;
+
+import java.io.IOException;
+import java.util.List;
+
+import org.icgc.dcc.repository.gdc.core.GDCFileProcessor.CaseBiospecimens;
+import org.junit.Test;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Iterables;
+import com.google.common.collect.Lists;
+import com.google.common.io.Resources;
+
+import lombok.val;
+
+public class GDCFileProcessorTest {
+
+  /**
+   * Constants.
+   */
+  private static final List<String> OTHER_DATA_TYPES =
+      ImmutableList.of("Aligned Reads", "Copy Number Variation", "Gene Expression Quantification");
+
+  @Test
+  public void testCaseBiospecimensMatchesPerFieldWalks() throws IOException {
+    int caseCount = 0;
+    for (val file : readFiles()) {
+      val dataTypes = ImmutableList.<String> builder().add(getDataType(file)).addAll(OTHER_DATA_TYPES).build();
+      for (val caze : getCases(file)) {
+        for (val dataType : dataTypes) {
+          val biospecimens = new CaseBiospecimens(caze, GDCFileProcessor.isMatchedDataType(dataType));
+
+          assertThat(biospecimens.getSubmitterSpecimenIds()).isEqualTo(resolveSubmitterSpecimenId(caze, dataType));
+          assertThat(biospecimens.getSpecimenTypes()).isEqualTo(resolveSpecimenType(caze, dataType));
+          assertThat(biospecimens.getMatchedControlSampleId())
+              .isEqualTo(resolveMatchedControlSampleId(caze, dataType));
+          assertThat(biospecimens.getSubmitterSampleIds()).isEqualTo(resolveSubmitterSampleId(caze, dataType));
+          assertThat(biospecimens.getTcgaSampleBarcodes()).isEqualTo(resolveTcgaSampleBarcode(caze, dataType));
+          assertThat(biospecimens.getTcgaAliquotBarcodes()).isEqualTo(resolveTcgaAliquotBarcode(caze, dataType));
+        }
+
+        caseCount++;
+      }
+    }
+
+    assertThat(caseCount).isEqualTo(4);
+  }
+
+  @Test
+  public void testCaseBiospecimens() throws IOException {
+    val files = readFiles();
+
+    // Matched: normals are controls and the first normal aliquot is the matched control
+    val maf = new CaseBiospecimens(getFirstCase(files.get(0)), true);
+    assertThat(maf.getTcgaSampleBarcodes()).containsExactly("TCGA-A1-A0SB-01A");
+    assertThat(maf.getTcgaAliquotBarcodes())
+        .containsExactly("TCGA-A1-A0SB-01A-11D-A142-09", "TCGA-A1-A0SB-01A-11R-A144-07");
+    assertThat(maf.getMatchedControlSampleId()).isEqualTo("TCGA-A1-A0SB-10A-01D-A142-09");
+
+    // Unmatched: every sample is primary
+    val bam = new CaseBiospecimens(getFirstCase(files.get(1)), false);
+    assertThat(bam.getSpecimenTypes()).containsExactly("Primary Tumor", "Recurrent Tumor", "Blood Derived Normal");
+    assertThat(bam.getMatchedControlSampleId()).isNull();
+
+    // A normal without aliquots is skipped when looking for the matched control
+    val vcf = new CaseBiospecimens(getFirstCase(files.get(2)), true);
+    assertThat(vcf.getMatchedControlSampleId()).isEqualTo("TCGA-05-4244-11A-01D-1105-08");
+  }
+
+  @Test
+  public void testIsMatchedDataType() {
+    assertThat(GDCFileProcessor.isMatchedDataType("Masked Somatic Mutation")).isTrue();
+    assertThat(GDCFileProcessor.isMatchedDataType("Copy Number VARIATION")).isTrue();
+    assertThat(GDCFileProcessor.isMatchedDataType("Aligned Reads")).isFalse();
+    assertThat(GDCFileProcessor.isMatchedDataType("")).isFalse();
+  }
+
+  private static List<ObjectNode> readFiles() throws IOException {
+    val page = DEFAULT.readTree(Resources.getResource("fixtures/files.page.json"));
+    val files = Lists.<ObjectNode> newArrayList();
+    for (val file : page.path("data").path("hits")) {
+      files.add((ObjectNode) file);
+    }
+
+    return files;
+  }
+
+  private static JsonNode getFirstCase(ObjectNode file) {
+    return Iterables.getFirst(getCases(file), null);
+  }
+
+  //
+  // Per-field walks replaced by CaseBiospecimens, kept as the reference behaviour
+  //
+
+  private static List<String> resolveSubmitterSpecimenId(JsonNode caze, String dataType) {
+    val submitterSpecimenId = Lists.<String> newArrayList();
+    for (val sample : getCaseSamples(caze)) {
+      val sampleType = getCaseSampleType(sample);
+
+      if (isPrimaryBiospecimen(dataType, sampleType)) {
+        submitterSpecimenId.add(getCaseSampleId(sample));
+      }
+    }
+
+    return submitterSpecimenId;
+  }
+
+  private static List<String> resolveSpecimenType(JsonNode caze, String dataType) {
+    val specimenType = Lists.<String> newArrayList();
+    for (val sample : getCaseSamples(caze)) {
+      val sampleType = getCaseSampleType(sample);
+
+      if (isPrimaryBiospecimen(dataType, sampleType)) {
+        specimenType.add(sampleType);
+      }
+    }
+
+    return specimenType;
+  }
+
+  private static String resolveMatchedControlSampleId(JsonNode caze, String dataType) {
+    for (val sample : getCaseSamples(caze)) {
+      val sampleType = getCaseSampleType(sample);
+
+      if (isPrimaryBiospecimen(dataType, sampleType) == false) {
+        for (val portion : getSamplePortions(sample)) {
+          for (val analyte : getPortionAnalytes(portion)) {
+            for (val aliquot : getAnalyteAliquots(analyte)) {
+              return getAliquotSubmitterId(aliquot);
+            }
+          }
+        }
+      }
+    }
+
+    return null;
+  }
+
+  private static List<String> resolveSubmitterSampleId(JsonNode caze, String dataType) {
+    val submitterSampleId = Lists.<String> newArrayList();
+    for (val sample : getCaseSamples(caze)) {
+      val sampleType = getCaseSampleType(sample);
+
+      if (isPrimaryBiospecimen(dataType, sampleType)) {
+        for (val portion : getSamplePortions(sample)) {
+          for (val analyte : getPortionAnalytes(portion)) {
+            for (val aliquot : getAnalyteAliquots(analyte)) {
+              submitterSampleId.add(getAliquotId(aliquot));
+            }
+          }
+        }
+      }
+    }
+
+    return submitterSampleId;
+  }
+
+  private static List<String> resolveTcgaSampleBarcode(JsonNode caze, String dataType) {
+    val tcgaSampleBarcode = Lists.<String> newArrayList();
+    for (val sample : getCaseSamples(caze)) {
+      val sampleType = getCaseSampleType(sample);
+
+      if (isPrimaryBiospecimen(dataType, sampleType)) {
+        tcgaSampleBarcode.add(getSampleSubmitterId(sample));
+      }
+    }
+
+    return tcgaSampleBarcode;
+  }
+
+  private static List<String> resolveTcgaAliquotBarcode(JsonNode caze, String dataType) {
+    val tcgaAliquotBarcode = Lists.<String> newArrayList();
+    for (val sample : getCaseSamples(caze)) {
+      val sampleType = getCaseSampleType(sample);
+
+      if (isPrimaryBiospecimen(dataType, sampleType)) {
+        for (val portion : getSamplePortions(sample)) {
+          for (val analyte : getPortionAnalytes(portion)) {
+            for (val aliquot : getAnalyteAliquots(analyte)) {
+              tcgaAliquotBarcode.add(getAliquotSubmitterId(aliquot));
+            }
+          }
+        }
+      }
+    }
+
+    return tcgaAliquotBarcode;
+  }
+
+  private static boolean isPrimaryBiospecimen(String dataType, String sampleType) {
+    val matched = dataType.toLowerCase().endsWith("variation") || dataType.toLowerCase().endsWith("mutation");
+    if (!matched) {
+      return true;
+    }
+
+    val control = sampleType.toLowerCase().contains("normal");
+    if (!control) {
+      return true;
+    }
+
+    return false;
+  }
+
+}
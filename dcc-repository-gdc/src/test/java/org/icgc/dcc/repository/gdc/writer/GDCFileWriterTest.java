@@ -0,0 +1,136 @@
+/*
+ * Copyright (c) 2016 The Ontario Institute for Cancer Research. All rights reserved.
+ *                                                                                                               
+ * This program and the accompanying materials are made available under the terms of the GNU Public License v3.0.
+ * You should have received a copy of the GNU General Public License along with                                  
+ * this program. If not, see <http://www.gnu.org/licenses/>.                                                     
+ *                                                                                                               
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY                           
+ * EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES                          
+ * OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT                           
+ * SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT,                                
+ * INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED                          
+ * TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS;                               
+ * OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER                              
+ * IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN                         
+ * ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.icgc.dcc.repository.gdc.writer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.Assume.assumeTrue;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.util.List;
+
+import org.icgc.dcc.repository.core.model.RepositoryFile;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Lists;
+import com.mongodb.MongoClientURI;
+
+import lombok.val;
+
+/**
+ * Requires a local MongoDB and is skipped otherwise.
+ */
+public class GDCFileWriterTest {
+
+  /**
+   * Constants.
+   */
+  private static final MongoClientURI MONGO_URI = new MongoClientURI("mongodb://localhost:27017/dcc-repository-test");
+
+  /**
+   * State.
+   */
+  private TestGDCFileWriter writer;
+
+  @Before
+  public void setUp() {
+    assumeTrue(isMongoRunning());
+
+    writer = new TestGDCFileWriter();
+    writer.clearFiles();
+    writer.clearState();
+  }
+
+  @After
+  public void tearDown() throws IOException {
+    if (writer != null) {
+      writer.clearFiles();
+      writer.clearState();
+      writer.close();
+    }
+  }
+
+  @Test
+  public void testWatermark() {
+    assertThat(writer.getWatermark()).isNull();
+    assertThat(writer.getFingerprint()).isNull();
+
+    writer.saveWatermark("2016-01-01T00:00:00Z", "a");
+    writer.saveWatermark("2016-02-01T00:00:00Z", "b");
+
+    assertThat(writer.getWatermark()).isEqualTo("2016-02-01T00:00:00Z");
+    assertThat(writer.getFingerprint()).isEqualTo("b");
+  }
+
+  @Test
+  public void testMerge() {
+    writer.write(ImmutableList.of(file("1", "old"), file("2", "old")));
+
+    writer.merge(ImmutableList.of(file("2", "new"), file("3", "new")));
+
+    assertThat(writer.readAccess()).containsOnly("1:old", "2:new", "3:new");
+  }
+
+  @Test
+  public void testRetain() {
+    writer.write(ImmutableList.of(file("1", "open"), file("2", "open"), file("3", "open")));
+
+    writer.retain(ImmutableSet.of("1", "3", "4"));
+
+    assertThat(writer.readAccess()).containsOnly("1:open", "3:open");
+  }
+
+  private static RepositoryFile file(String objectId, String access) {
+    return new RepositoryFile().setId("FI" + objectId).setObjectId(objectId).setAccess(access);
+  }
+
+  private static boolean isMongoRunning() {
+    try (val socket = new Socket()) {
+      socket.connect(new InetSocketAddress("localhost", 27017), 1000);
+      return true;
+    } catch (IOException e) {
+      return false;
+    }
+  }
+
+  private static class TestGDCFileWriter extends GDCFileWriter {
+
+    private TestGDCFileWriter() {
+      super(MONGO_URI);
+    }
+
+    private void clearState() {
+      getCollection("GDCImportState").drop();
+    }
+
+    private List<String> readAccess() {
+      val access = Lists.<String> newArrayList();
+      eachDocument(getFileCollection(),
+          file -> access.add(file.path("objectId").textValue() + ":" + file.path("access").textValue()));
+
+      return access;
+    }
+
+  }
+
+}
@@ -0,0 +1,201 @@
+/*
+ * Copyright (c) 2016 The Ontario Institute for Cancer Research. All rights reserved.
+ *                                                                                                               
+ * This program and the accompanying materials are made available under the terms of the GNU Public License v3.0.
+ * You should have received a copy of the GNU General Public License along with                                  
+ * this program. If not, see <http://www.gnu.org/licenses/>.                                                     
+ *                                                                                                               
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY                           
+ * EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES                          
+ * OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT                           
+ * SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT,                                
+ * INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED                          
+ * TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS;                               
+ * OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER                              
+ * IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN                         
+ * ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.icgc.dcc.repository.index.core;
+
+import static java.util.concurrent.TimeUnit.SECONDS;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+
+import org.elasticsearch.action.bulk.BulkItemResponse;
+import org.icgc.dcc.repository.core.model.RepositoryCollection;
+import org.icgc.dcc.repository.core.util.AbstractJongoComponent;
+import org.icgc.dcc.repository.index.model.DocumentType;
+import org.icgc.dcc.repository.index.util.DocumentCheckpoint;
+
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.google.common.collect.Maps;
+import com.mongodb.BasicDBObject;
+import com.mongodb.DBCollection;
+import com.mongodb.MongoClientURI;
+
+import lombok.Cleanup;
+import lombok.NonNull;
+import lombok.val;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Persists per {@link DocumentType} index progress so that a failed build can resume against the same dated index
+ * instead of starting over.
+ * <p>
+ * Checkpoints are only valid for the {@code File} collection they were taken against, so they are stored with a
+ * fingerprint of it and discarded when it no longer matches, e.g. after a same day re-import.
+ */
+@Slf4j
+public class RepositoryFileIndexCheckpointer extends AbstractJongoComponent {
+
+  /**
+   * Constants.
+   */
+  private static final String CHECKPOINT_COLLECTION_NAME = "IndexCheckpoint";
+  private static final long SAVE_INTERVAL_SECONDS = 30;
+
+  /**
+   * Configuration.
+   */
+  @NonNull
+  private final String indexName;
+
+  /**
+   * State.
+   */
+  private String fingerprint;
+  private final Map<DocumentType, DocumentCheckpoint> checkpoints = Maps.newConcurrentMap();
+  private final ScheduledExecutorService saver = Executors.newSingleThreadScheduledExecutor();
+
+  public RepositoryFileIndexCheckpointer(@NonNull MongoClientURI mongoUri, @NonNull String indexName) {
+    super(mongoUri);
+    this.indexName = indexName;
+  }
+
+  /**
+   * Loads the checkpoints of a previous run against the index.
+   * 
+   * @return {@code true} if any were found
+   */
+  public boolean load() {
+    // Ordered types are read in file id order while checkpointing
+    getCollection(RepositoryCollection.FILE).ensureIndex("{id: 1}");
+    fingerprint = fingerprintFiles();
+
+    val saved = Maps.<DocumentType, ObjectNode> newEnumMap(DocumentType.class);
+    for (val checkpoint : getCollection(CHECKPOINT_COLLECTION_NAME).find("{index: #}", indexName)
+        .as(ObjectNode.class)) {
+      val type = getDocumentType(checkpoint.path("type").textValue());
+      if (type != null) {
+        saved.put(type, checkpoint);
+      }
+    }
+
+    val stale = saved.values().stream()
+        .anyMatch(checkpoint -> !fingerprint.equals(checkpoint.path("fingerprint").textValue()));
+    if (stale) {
+      log.info("Discarding checkpoints of '{}' taken against different files", indexName);
+      getCollection(CHECKPOINT_COLLECTION_NAME).remove("{index: #}", indexName);
+      saved.clear();
+    }
+
+    for (val type : DocumentType.values()) {
+      val checkpoint = saved.get(type);
+      val lastFileId = checkpoint == null ? null : checkpoint.path("last_file_id").textValue();
+      val complete = checkpoint != null && checkpoint.path("complete").asBoolean();
+      if (checkpoint != null) {
+        log.info("Resuming '{}' type '{}' from last file id '{}' (complete: {})", indexName, type.getId(),
+            lastFileId, complete);
+      }
+
+      checkpoints.put(type, new DocumentCheckpoint(type, lastFileId, complete));
+    }
+
+    saver.scheduleWithFixedDelay(this::save, SAVE_INTERVAL_SECONDS, SAVE_INTERVAL_SECONDS, SECONDS);
+
+    return !saved.isEmpty();
+  }
+
+  public DocumentCheckpoint getCheckpoint(@NonNull DocumentType type) {
+    return checkpoints.get(type);
+  }
+
+  /**
+   * Acknowledges a successfully indexed document.
+   */
+  public void onItem(@NonNull BulkItemResponse item) {
+    // Per-type indexes are suffixed with the type name
+    if (item.isFailed() || !item.getIndex().startsWith(indexName)) {
+      return;
+    }
+
+    val type = getDocumentType(item.getType());
+    val checkpoint = type == null ? null : checkpoints.get(type);
+    if (checkpoint != null) {
+      checkpoint.acknowledge(item.getId());
+    }
+  }
+
+  public synchronized void save() {
+    val collection = getCollection(CHECKPOINT_COLLECTION_NAME);
+    for (val checkpoint : checkpoints.values()) {
+      val typeName = checkpoint.getType().getId();
+      collection
+          .update("{_id: #}", indexName + "/" + typeName)
+          .upsert()
+          .with("{$set: {index: #, type: #, fingerprint: #, last_file_id: #, complete: #}}",
+              indexName, typeName, fingerprint, checkpoint.getLastFileId(), checkpoint.isComplete());
+    }
+  }
+
+  /**
+   * Removes all checkpoints of the index, e.g. once it has been fully built.
+   */
+  public synchronized void clear() {
+    log.info("Clearing checkpoints of index '{}'...", indexName);
+    getCollection(CHECKPOINT_COLLECTION_NAME).remove("{index: #}", indexName);
+    checkpoints.clear();
+  }
+
+  @Override
+  public void close() throws IOException {
+    saver.shutdownNow();
+    if (!checkpoints.isEmpty()) {
+      save();
+    }
+
+    super.close();
+  }
+
+  /**
+   * @return the count, largest file id and newest {@code _id} of the {@code File} collection. Every import inserts its
+   * documents with new object ids, so this changes with each re-import while only reading index boundaries.
+   */
+  private String fingerprintFiles() {
+    val files = getCollection(RepositoryCollection.FILE).getDBCollection();
+    return files.count() + "/" + getLast(files, "id") + "/" + getLast(files, "_id");
+  }
+
+  private static Object getLast(DBCollection files, String field) {
+    @Cleanup
+    val cursor = files.find(new BasicDBObject(), new BasicDBObject(field, 1))
+        .sort(new BasicDBObject(field, -1))
+        .limit(1);
+
+    return cursor.hasNext() ? cursor.next().get(field) : null;
+  }
+
+  private static DocumentType getDocumentType(String typeName) {
+    for (val type : DocumentType.values()) {
+      if (type.getId().equals(typeName)) {
+        return type;
+      }
+    }
+
+    return null;
+  }
+
+}
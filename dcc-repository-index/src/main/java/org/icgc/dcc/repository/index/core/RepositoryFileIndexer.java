@@ -26,7 +26,9 @@ import static org.icgc.dcc.common.core.util.stream.Streams.stream;
 import static org.icgc.dcc.dcc.common.es.TransportClientFactory.createClient;
 import static org.icgc.dcc.repository.index.core.RepositoryFileIndexes.compareIndexDateDescending;
 import static org.icgc.dcc.repository.index.core.RepositoryFileIndexes.getCurrentIndexName;
+import static org.icgc.dcc.repository.index.core.RepositoryFileIndexes.getIndexDate;
 import static org.icgc.dcc.repository.index.core.RepositoryFileIndexes.getSettings;
+import static org.icgc.dcc.repository.index.core.RepositoryFileIndexes.getTypeIndexName;
 import static org.icgc.dcc.repository.index.core.RepositoryFileIndexes.getTypeMapping;
 import static org.icgc.dcc.repository.index.core.RepositoryFileIndexes.isRepoIndexName;
 
@@ -34,13 +36,18 @@ import java.io.Closeable;
 import java.io.IOException;
 import java.net.URI;
 import java.util.Arrays;
+import java.util.Collection;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.zip.GZIPOutputStream;
 
+import org.apache.commons.compress.utils.CountingOutputStream;
 import org.apache.hadoop.conf.Configuration;
 import org.apache.hadoop.fs.FileSystem;
 import org.apache.hadoop.fs.Path;
-import org.elasticsearch.client.Client;
 import org.icgc.dcc.dcc.common.es.DocumentWriterConfiguration;
 import org.icgc.dcc.dcc.common.es.DocumentWriterFactory;
 import org.icgc.dcc.dcc.common.es.core.DocumentWriter;
@@ -49,14 +56,28 @@ import org.icgc.dcc.repository.index.document.FileCentricDocumentProcessor;
 import org.icgc.dcc.repository.index.document.FileTextDocumentProcessor;
 import org.icgc.dcc.repository.index.document.RepositoryDocumentProcessor;
 import org.icgc.dcc.repository.index.model.DocumentType;
+import org.icgc.dcc.repository.index.util.AdaptiveBulkController;
+import org.icgc.dcc.repository.index.util.AdaptiveBulkDocumentWriter;
+import org.icgc.dcc.repository.index.util.DocumentCheckpoint;
+import org.icgc.dcc.repository.index.util.IndexMetrics;
+import org.icgc.dcc.repository.index.util.InstrumentedClient;
 import org.icgc.dcc.repository.index.util.TarArchiveDocumentWriter;
 
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.LinkedHashMultimap;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Multimap;
 import com.mongodb.MongoClientURI;
 
 import lombok.Cleanup;
+import lombok.Getter;
 import lombok.NonNull;
+import lombok.Setter;
 import lombok.SneakyThrows;
 import lombok.val;
+import lombok.experimental.Accessors;
 import lombok.extern.slf4j.Slf4j;
 
 @Slf4j
@@ -74,12 +95,41 @@ public class RepositoryFileIndexer implements Closeable {
   @NonNull
   private final String indexName;
 
+  /**
+   * Options.
+   */
+  @Setter
+  @Accessors(chain = true, fluent = true)
+  private boolean adaptiveBulk = false;
+  @Setter
+  @Accessors(chain = true, fluent = true)
+  private boolean resumable = false;
+  /**
+   * Build each {@link DocumentType} concurrently into its own physical index behind the alias.
+   */
+  @Setter
+  @Accessors(chain = true, fluent = true)
+  private boolean splitIndexes = false;
+  /**
+   * Strip repository fields from file copies that are resolvable from the {@code repository} type.
+   */
+  @Setter
+  @Accessors(chain = true, fluent = true)
+  private boolean leanSource = false;
+
   /**
    * Dependencies.
    */
   @NonNull
-  private final Client client;
-  private final DocumentWriter documentWriter;
+  private final InstrumentedClient client;
+  private final Map<DocumentType, DocumentWriter> documentWriters = Maps.newEnumMap(DocumentType.class);
+  private RepositoryFileIndexCheckpointer checkpointer;
+
+  /**
+   * Metrics.
+   */
+  @Getter
+  private final IndexMetrics metrics = new IndexMetrics();
 
   public RepositoryFileIndexer(@NonNull MongoClientURI mongoUri, @NonNull URI esUri, URI archiveUri,
       String indexAlias) {
@@ -87,24 +137,76 @@ public class RepositoryFileIndexer implements Closeable {
     this.archiveUri = archiveUri;
     this.indexAlias = indexAlias;
     this.indexName = getCurrentIndexName(indexAlias);
-    this.client = createClient(esUri.toString());
-    this.documentWriter = createDocumentWriter(this.client, this.indexName);
+    this.client = new InstrumentedClient(createClient(esUri.toString()), metrics);
   }
 
   public void indexFiles() {
-    initializeIndex();
+    val resume = initializeCheckpoints();
+    initializeIndex(resume);
+    createDocumentWriters();
     indexDocuments();
     aliasIndex();
     pruneIndexes();
+
+    if (checkpointer != null) {
+      // Index is complete so a subsequent run should start fresh
+      checkpointer.clear();
+    }
   }
 
   @Override
   public void close() throws IOException {
-    documentWriter.close();
+    for (val documentWriter : ImmutableSet.copyOf(documentWriters.values())) {
+      documentWriter.close();
+    }
+
+    if (checkpointer != null) {
+      // Saved after the writer has flushed so that the last acknowledgements are captured
+      checkpointer.close();
+    }
+
     client.close();
   }
 
-  private void initializeIndex() {
+  private boolean initializeCheckpoints() {
+    if (!resumable) {
+      return false;
+    }
+
+    checkpointer = new RepositoryFileIndexCheckpointer(mongoUri, indexName);
+    client.addItemListener(checkpointer::onItem);
+
+    if (!isIndexExists()) {
+      // Nothing to resume against
+      checkpointer.clear();
+    }
+
+    return checkpointer.load();
+  }
+
+  private boolean isIndexExists() {
+    val indexNames = getPhysicalIndexNames().keySet().toArray(new String[0]);
+
+    log.info("Checking index(es) '{}' for existence...", Arrays.toString(indexNames));
+    return client.admin().indices().prepareExists(indexNames)
+        .execute()
+        .actionGet()
+        .isExists();
+  }
+
+  private void initializeIndex(boolean resume) {
+    val exists = isIndexExists();
+    if (exists && resume) {
+      log.info("Resuming existing index(es) from checkpoints...");
+      return;
+    }
+
+    for (val entry : getPhysicalIndexNames().asMap().entrySet()) {
+      initializeIndex(entry.getKey(), entry.getValue());
+    }
+  }
+
+  private void initializeIndex(String indexName, Collection<DocumentType> types) {
     val indexClient = client.admin().indices();
 
     log.info("Checking index '{}' for existence...", indexName);
@@ -126,15 +228,15 @@ public class RepositoryFileIndexer implements Closeable {
       log.info("Creating index '{}'...", indexName);
       checkState(indexClient
           .prepareCreate(indexName)
-          .setSettings(getSettings().toString())
+          .setSettings(getIndexSettings(types).toString())
           .execute()
           .actionGet()
           .isAcknowledged(),
           "Index '%s' creation was not acknowledged!", indexName);
 
-      for (val type : DocumentType.values()) {
+      for (val type : types) {
         val typeName = type.getId();
-        val source = getTypeMapping(typeName).toString();
+        val source = getTypeMapping(typeName, leanSource).toString();
 
         log.info("Creating index '{}' mapping for type '{}'...", indexName, typeName);
         checkState(indexClient.preparePutMapping(indexName)
@@ -151,65 +253,120 @@ public class RepositoryFileIndexer implements Closeable {
     }
   }
 
+  @SneakyThrows
   private void indexDocuments() {
     val watch = createStarted();
 
-    @Cleanup
-    val archiveWriter = createArchiveWriter();
+    val archive = createArchive();
+    val archiveWriter = new TarArchiveDocumentWriter(indexName, new GZIPOutputStream(archive), leanSource);
 
-    log.info("Indexing repository documents...");
-    val repositoryCount = indexRepositoryDocuments(archiveWriter);
-    log.info("Indexing file documents...");
-    val fileCount = indexFileDocuments(archiveWriter);
-    log.info("Indexing file text documents...");
-    val fileTextCount = indexFileTextDocuments(archiveWriter);
-    log.info("Indexing file donor documents...");
-    val fileDonorCount = indexFileDonorDocuments(archiveWriter);
+    Map<DocumentType, Integer> counts;
+    try {
+      val tasks = ImmutableMap.<DocumentType, Callable<Integer>> of(
+          DocumentType.REPOSITORY, () -> indexRepositoryDocuments(archiveWriter),
+          DocumentType.FILE_CENTRIC, () -> indexFileDocuments(archiveWriter),
+          DocumentType.FILE_TEXT, () -> indexFileTextDocuments(archiveWriter),
+          DocumentType.DONOR_TEXT, () -> indexFileDonorDocuments(archiveWriter));
+
+      counts = splitIndexes ? executeConcurrently(tasks) : executeSequentially(tasks);
+    } finally {
+      val bytesWritten = archiveWriter.getBytesWritten();
+      archiveWriter.close();
+      metrics.recordArchive(bytesWritten, archive.getBytesWritten());
+    }
 
     log.info("Finished indexing {}, repository, {} file, {} file text and {} file donor documents in {}",
-        formatCount(repositoryCount), formatCount(fileCount), formatCount(fileTextCount), formatCount(fileDonorCount),
+        formatCount(counts.get(DocumentType.REPOSITORY)), formatCount(counts.get(DocumentType.FILE_CENTRIC)),
+        formatCount(counts.get(DocumentType.FILE_TEXT)), formatCount(counts.get(DocumentType.DONOR_TEXT)),
         watch);
+    log.info("Index metrics: {}", metrics);
+  }
+
+  private static Map<DocumentType, Integer> executeSequentially(Map<DocumentType, Callable<Integer>> tasks)
+      throws Exception {
+    val counts = Maps.<DocumentType, Integer> newEnumMap(DocumentType.class);
+    for (val entry : tasks.entrySet()) {
+      counts.put(entry.getKey(), entry.getValue().call());
+    }
+
+    return counts;
+  }
+
+  private static Map<DocumentType, Integer> executeConcurrently(Map<DocumentType, Callable<Integer>> tasks)
+      throws Exception {
+    val executor = Executors.newFixedThreadPool(tasks.size());
+    try {
+      val futures = Maps.<DocumentType, Future<Integer>> newEnumMap(DocumentType.class);
+      for (val entry : tasks.entrySet()) {
+        futures.put(entry.getKey(), executor.submit(entry.getValue()));
+      }
+
+      val counts = Maps.<DocumentType, Integer> newEnumMap(DocumentType.class);
+      for (val entry : futures.entrySet()) {
+        counts.put(entry.getKey(), entry.getValue().get());
+      }
+
+      return counts;
+    } finally {
+      executor.shutdownNow();
+    }
   }
 
   @SneakyThrows
   private int indexRepositoryDocuments(TarArchiveDocumentWriter archiveWriter) {
+    log.info("Indexing repository documents...");
     @Cleanup
-    val processor = new RepositoryDocumentProcessor(mongoUri, documentWriter, archiveWriter);
+    val processor = new RepositoryDocumentProcessor(mongoUri, getDocumentWriter(DocumentType.REPOSITORY),
+        archiveWriter, metrics, getCheckpoint(DocumentType.REPOSITORY));
     return processor.process();
   }
 
   @SneakyThrows
   private int indexFileDocuments(TarArchiveDocumentWriter archiveWriter) {
+    log.info("Indexing file documents...");
     @Cleanup
-    val processor = new FileCentricDocumentProcessor(mongoUri, documentWriter, archiveWriter);
+    val processor = new FileCentricDocumentProcessor(mongoUri, getDocumentWriter(DocumentType.FILE_CENTRIC),
+        archiveWriter, metrics, getCheckpoint(DocumentType.FILE_CENTRIC), leanSource);
     return processor.process();
   }
 
   @SneakyThrows
   private int indexFileTextDocuments(TarArchiveDocumentWriter archiveWriter) {
+    log.info("Indexing file text documents...");
     @Cleanup
-    val processor = new FileTextDocumentProcessor(mongoUri, documentWriter, archiveWriter);
+    val processor = new FileTextDocumentProcessor(mongoUri, getDocumentWriter(DocumentType.FILE_TEXT),
+        archiveWriter, metrics, getCheckpoint(DocumentType.FILE_TEXT));
     return processor.process();
   }
 
   @SneakyThrows
   private int indexFileDonorDocuments(TarArchiveDocumentWriter archiveWriter) {
+    log.info("Indexing file donor documents...");
     @Cleanup
-    val processor = new DonorTextDocumentProcessor(mongoUri, documentWriter, archiveWriter);
+    val processor = new DonorTextDocumentProcessor(mongoUri, getDocumentWriter(DocumentType.DONOR_TEXT),
+        archiveWriter, metrics, getCheckpoint(DocumentType.DONOR_TEXT));
     return processor.process();
   }
 
+  private DocumentWriter getDocumentWriter(DocumentType type) {
+    return documentWriters.get(type);
+  }
+
+  private DocumentCheckpoint getCheckpoint(DocumentType type) {
+    return checkpointer == null ? DocumentCheckpoint.disabled(type) : checkpointer.getCheckpoint(type);
+  }
+
   @SneakyThrows
-  private TarArchiveDocumentWriter createArchiveWriter() {
+  private CountingOutputStream createArchive() {
     val userName = archiveUri.getUserInfo();
     if (userName != null) {
       System.setProperty("HADOOP_USER_NAME", userName);
     }
 
     val fileSystem = FileSystem.get(archiveUri, new Configuration());
-    val archive = new GZIPOutputStream(fileSystem.create(new Path(archiveUri)));
 
-    return new TarArchiveDocumentWriter(indexName, archive);
+    // Counts compressed bytes
+    return new CountingOutputStream(fileSystem.create(new Path(archiveUri)));
   }
 
   @SneakyThrows
@@ -221,25 +378,35 @@ public class RepositoryFileIndexer implements Closeable {
     }
 
     // Add new alias
-    log.info("Assigning index alias {} to index {}...", indexAlias, indexName);
-    request.addAlias(indexName, indexAlias);
+    val indexNames = getPhysicalIndexNames().keySet().toArray(new String[0]);
+    log.info("Assigning index alias {} to index(es) {}...", indexAlias, Arrays.toString(indexNames));
+    request.addAlias(indexNames, indexAlias);
 
-    // Re-assign
+    // Re-assign atomically
     checkState(request
         .execute()
         .actionGet()
         .isAcknowledged(),
-        "Assigning index alias '%s' to index '%s' was not acknowledged!",
-        indexAlias, indexName);
+        "Assigning index alias '%s' to index(es) '%s' was not acknowledged!",
+        indexAlias, Arrays.toString(indexNames));
   }
 
   private void pruneIndexes() {
+    // Per-type indexes of the same build share a date
+    val retainedDates = getIndexNames()
+        .stream()
+        .filter(isRepoIndexName(indexAlias))
+        .sorted(compareIndexDateDescending(indexAlias))
+        .map(repoIndexName -> getIndexDate(indexAlias, repoIndexName))
+        .distinct()
+        .limit(3) // Keep 3
+        .collect(toImmutableSet());
+
     String[] staleRepoIndexNames =
         getIndexNames()
             .stream()
             .filter(isRepoIndexName(indexAlias))
-            .sorted(compareIndexDateDescending(indexAlias))
-            .skip(3) // Keep 3
+            .filter(repoIndexName -> !retainedDates.contains(getIndexDate(indexAlias, repoIndexName)))
             .toArray(size -> new String[size]);
 
     if (staleRepoIndexNames.length == 0) {
@@ -268,7 +435,37 @@ public class RepositoryFileIndexer implements Closeable {
         .collect(toImmutableSet());
   }
 
-  private static DocumentWriter createDocumentWriter(Client client, String indexName) {
+  /**
+   * @return the physical index names of this build and the types each contains
+   */
+  private Multimap<String, DocumentType> getPhysicalIndexNames() {
+    val indexNames = LinkedHashMultimap.<String, DocumentType> create();
+    for (val type : DocumentType.values()) {
+      indexNames.put(splitIndexes ? getTypeIndexName(indexName, type) : indexName, type);
+    }
+
+    return indexNames;
+  }
+
+  private static ObjectNode getIndexSettings(Collection<DocumentType> types) throws IOException {
+    return types.size() == 1 ? getSettings(types.iterator().next()) : getSettings();
+  }
+
+  private void createDocumentWriters() {
+    for (val entry : getPhysicalIndexNames().asMap().entrySet()) {
+      val documentWriter = createDocumentWriter(entry.getKey());
+      for (val type : entry.getValue()) {
+        documentWriters.put(type, documentWriter);
+      }
+    }
+  }
+
+  private DocumentWriter createDocumentWriter(String indexName) {
+    if (adaptiveBulk) {
+      log.info("Using adaptive bulk document writer for index '{}'", indexName);
+      return new AdaptiveBulkDocumentWriter(client, indexName, new AdaptiveBulkController());
+    }
+
     val configuration = new DocumentWriterConfiguration().client(client).indexName(indexName);
 
     return DocumentWriterFactory.createDocumentWriter(configuration);
@@ -20,6 +20,7 @@ package org.icgc.dcc.repository.index.core;
 import static com.google.common.base.Strings.nullToEmpty;
 import static com.google.common.io.Resources.getResource;
 import static java.lang.String.format;
+import static java.util.stream.Collectors.joining;
 import static org.icgc.dcc.common.core.dcc.Versions.getScmInfo;
 import static org.icgc.dcc.common.core.json.Jackson.DEFAULT;
 
@@ -27,13 +28,20 @@ import java.io.IOException;
 import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
 import java.util.Comparator;
+import java.util.Map;
 import java.util.function.Predicate;
+import java.util.stream.Stream;
+
+import org.icgc.dcc.repository.index.model.DocumentType;
+import org.icgc.dcc.repository.index.util.FileCopyRepositoryResolver;
 
 import org.joda.time.DateTime;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.google.common.collect.ImmutableMap;
 
+import lombok.NonNull;
 import lombok.val;
 
 /**
@@ -45,6 +53,18 @@ public class RepositoryFileIndexes {
    * Index naming.
    */
   public static final DateTimeFormatter INDEX_NAME_DATE_FORMAT = DateTimeFormatter.ofPattern("yyyyMMdd");
+  private static final String TYPE_SUFFIX_PATTERN = "(-(" + Stream.of(DocumentType.values())
+      .map(DocumentType::getId)
+      .collect(joining("|")) + "))?";
+
+  /**
+   * Shard counts of per-type indexes, sized to the volume of each type.
+   */
+  private static final Map<DocumentType, Integer> TYPE_SHARD_COUNTS = ImmutableMap.of(
+      DocumentType.REPOSITORY, 1,
+      DocumentType.FILE_CENTRIC, 15,
+      DocumentType.FILE_TEXT, 5,
+      DocumentType.DONOR_TEXT, 2);
 
   /**
    * Metadata location.
@@ -58,6 +78,13 @@ public class RepositoryFileIndexes {
     return (ObjectNode) DEFAULT.readTree(settingsFileUrl);
   }
 
+  public static ObjectNode getSettings(@NonNull DocumentType type) throws IOException {
+    val settings = getSettings();
+    settings.put("index.number_of_shards", TYPE_SHARD_COUNTS.get(type));
+
+    return settings;
+  }
+
   public static ObjectNode getTypeMapping(String typeName) throws JsonProcessingException, IOException {
     val resourceName = format("%s/%s.mapping.json", ES_CONFIG_BASE_PATH, typeName);
     val mappingFileUrl = getResource(resourceName);
@@ -75,19 +102,37 @@ public class RepositoryFileIndexes {
     return (ObjectNode) typeMapping;
   }
 
+  public static ObjectNode getTypeMapping(String typeName, boolean leanSource) throws IOException {
+    val typeMapping = getTypeMapping(typeName);
+    if (leanSource && DocumentType.FILE_CENTRIC.getId().equals(typeName)) {
+      // Keep indexed for search and aggregation, but resolve from the repository type when reading
+      val excludes = typeMapping.with(typeName).with("_source").withArray("excludes");
+      for (val fieldName : FileCopyRepositoryResolver.EXCLUDED_FIELD_NAMES.keySet()) {
+        excludes.add("file_copies." + fieldName);
+      }
+    }
+
+    return typeMapping;
+  }
+
   public static String getCurrentIndexName(String indexAlias) {
     val currentDate = INDEX_NAME_DATE_FORMAT.format(LocalDate.now());
     return indexAlias + "-" + currentDate;
   }
 
+  public static String getTypeIndexName(String indexName, DocumentType type) {
+    return indexName + "-" + type.getId();
+  }
+
   public static LocalDate getIndexDate(String indexAlias, String indexName) {
-    val date = indexName.replace(indexAlias + "-", "");
+    // Ignore optional type suffix
+    val date = indexName.replace(indexAlias + "-", "").substring(0, 8);
     return INDEX_NAME_DATE_FORMAT.parse(date, LocalDate::from);
   }
 
   public static Predicate<? super String> isRepoIndexName(String indexAlias) {
-    // Template: [indexAlias]-[yyyyMMdd]
-    return indexName -> indexName.matches(indexAlias + "-\\d{8}");
+    // Template: [indexAlias]-[yyyyMMdd] or [indexAlias]-[yyyyMMdd]-[type]
+    return indexName -> indexName.matches(indexAlias + "-\\d{8}" + TYPE_SUFFIX_PATTERN);
   }
 
   public static Comparator<? super String> compareIndexDateDescending(String indexAlias) {
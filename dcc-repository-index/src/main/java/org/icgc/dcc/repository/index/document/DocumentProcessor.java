@@ -26,7 +26,12 @@ import org.icgc.dcc.dcc.common.es.impl.IndexDocumentType;
 import org.icgc.dcc.dcc.common.es.model.IndexDocument;
 import org.icgc.dcc.repository.core.model.RepositoryCollection;
 import org.icgc.dcc.repository.core.util.AbstractJongoComponent;
+import org.icgc.dcc.repository.index.model.DocumentType;
+import org.icgc.dcc.repository.index.util.DocumentCheckpoint;
+import org.icgc.dcc.repository.index.util.IndexMetrics;
+import org.icgc.dcc.repository.index.util.IndexMetrics.DocumentTypeMetrics;
 import org.icgc.dcc.repository.index.util.TarArchiveDocumentWriter;
+import org.jongo.MongoCursor;
 
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.node.ArrayNode;
@@ -53,18 +58,70 @@ public abstract class DocumentProcessor extends AbstractJongoComponent {
   @NonNull
   private final DocumentWriter documentWriter;
 
-  public DocumentProcessor(MongoClientURI mongoUri, IndexDocumentType type, DocumentWriter documentWriter,
-      TarArchiveDocumentWriter archiveWriter) {
+  /**
+   * Metrics.
+   */
+  @NonNull
+  private final DocumentTypeMetrics metrics;
+
+  /**
+   * State.
+   */
+  @NonNull
+  private final DocumentCheckpoint checkpoint;
+
+  public DocumentProcessor(MongoClientURI mongoUri, DocumentType type, DocumentWriter documentWriter,
+      TarArchiveDocumentWriter archiveWriter, IndexMetrics metrics, DocumentCheckpoint checkpoint) {
     super(mongoUri);
     this.documentWriter = documentWriter;
     this.archiveWriter = archiveWriter;
-    this.indexType = type;
+    this.indexType = () -> type.getId();
+    this.metrics = metrics.getDocumentType(type);
+    this.checkpoint = checkpoint;
+  }
+
+  public int process() {
+    metrics.start();
+    try {
+      val count = processDocuments();
+      checkpoint.finish();
+
+      return count;
+    } finally {
+      metrics.stop();
+    }
   }
 
-  abstract public int process();
+  abstract protected int processDocuments();
 
   protected int eachFile(Consumer<ObjectNode> consumer) {
-    return eachDocument(RepositoryCollection.FILE, consumer);
+    int documentCount = 0;
+
+    val cursor = readFiles().iterator();
+    while (true) {
+      // Time spent waiting on Mongo, excluding the work done by the consumer
+      val start = System.nanoTime();
+      if (!cursor.hasNext()) {
+        break;
+      }
+
+      val file = cursor.next();
+      metrics.recordCursorRead(System.nanoTime() - start);
+
+      consumer.accept(file);
+      documentCount++;
+    }
+
+    return documentCount;
+  }
+
+  private MongoCursor<ObjectNode> readFiles() {
+    if (!checkpoint.isEnabled()) {
+      return readDocuments(RepositoryCollection.FILE);
+    }
+
+    // Checkpoints are expressed as the last acknowledged file id which requires a stable order
+    return getCollection(RepositoryCollection.FILE).find().sort("{id: 1}").as(ObjectNode.class);
   }
 
   protected IndexDocument createDocument(@NonNull String id) {
@@ -81,8 +138,23 @@ public abstract class DocumentProcessor extends AbstractJongoComponent {
     val source = document.getSource();
     source.remove("_id");
 
-    documentWriter.write(document);
-    archiveWriter.write(document);
+    // Serialize once for the archive and to account for the document size
+    val serializeStart = System.nanoTime();
+    val bytes = TarArchiveDocumentWriter.serialize(source);
+    metrics.recordDocument(bytes.length, System.nanoTime() - serializeStart);
+
+    // The archive is always written in full, but documents indexed by a previous run are not re-sent
+    if (!checkpoint.isAcknowledged(document.getId())) {
+      checkpoint.register(document.getId());
+
+      val writeStart = System.nanoTime();
+      documentWriter.write(document);
+      metrics.recordWrite(System.nanoTime() - writeStart);
+    }
+
+    val archiveStart = System.nanoTime();
+    archiveWriter.write(document, bytes);
+    metrics.recordArchiveWrite(System.nanoTime() - archiveStart);
   }
 
   protected static String getId(ObjectNode file) {
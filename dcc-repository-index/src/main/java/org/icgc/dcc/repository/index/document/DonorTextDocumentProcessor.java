@@ -27,6 +27,8 @@ import java.util.Set;
 import org.icgc.dcc.dcc.common.es.core.DocumentWriter;
 import org.icgc.dcc.dcc.common.es.model.IndexDocument;
 import org.icgc.dcc.repository.index.model.DocumentType;
+import org.icgc.dcc.repository.index.util.DocumentCheckpoint;
+import org.icgc.dcc.repository.index.util.IndexMetrics;
 import org.icgc.dcc.repository.index.util.TarArchiveDocumentWriter;
 
 import com.fasterxml.jackson.databind.JsonNode;
@@ -57,13 +59,13 @@ public class DonorTextDocumentProcessor extends DocumentProcessor {
       "tcga_aliquot_barcode");
 
   public DonorTextDocumentProcessor(MongoClientURI mongoUri, DocumentWriter documentWriter,
-      TarArchiveDocumentWriter archiveWriter) {
-    super(mongoUri, () -> DocumentType.DONOR_TEXT.getId(), documentWriter, archiveWriter);
+      TarArchiveDocumentWriter archiveWriter, IndexMetrics metrics, DocumentCheckpoint checkpoint) {
+    super(mongoUri, DocumentType.DONOR_TEXT, documentWriter, archiveWriter, metrics, checkpoint);
   }
 
   @Override
   @SneakyThrows
-  public int process() {
+  protected int processDocuments() {
     val summary = resolveFileDonorSummary();
 
     val donorIds = summary.donorIds();
@@ -19,22 +19,38 @@ package org.icgc.dcc.repository.index.document;
 
 import org.icgc.dcc.dcc.common.es.core.DocumentWriter;
 import org.icgc.dcc.dcc.common.es.model.IndexDocument;
+import org.icgc.dcc.repository.core.model.Repositories;
 import org.icgc.dcc.repository.index.model.DocumentType;
+import org.icgc.dcc.repository.index.util.DocumentCheckpoint;
+import org.icgc.dcc.repository.index.util.FileCopyRepositoryResolver;
+import org.icgc.dcc.repository.index.util.IndexMetrics;
 import org.icgc.dcc.repository.index.util.TarArchiveDocumentWriter;
 
 import com.mongodb.MongoClientURI;
 
 public class FileCentricDocumentProcessor extends DocumentProcessor {
 
+  /**
+   * Dependencies.
+   */
+  private final FileCopyRepositoryResolver repositoryResolver;
+
   public FileCentricDocumentProcessor(MongoClientURI mongoUri, DocumentWriter documentWriter,
-      TarArchiveDocumentWriter archiveWriter) {
-    super(mongoUri, () -> DocumentType.FILE_CENTRIC.getId(), documentWriter, archiveWriter);
+      TarArchiveDocumentWriter archiveWriter, IndexMetrics metrics, DocumentCheckpoint checkpoint,
+      boolean leanSource) {
+    super(mongoUri, DocumentType.FILE_CENTRIC, documentWriter, archiveWriter, metrics, checkpoint);
+    this.repositoryResolver =
+        leanSource ? FileCopyRepositoryResolver.fromRepositories(Repositories.getRepositories()) : null;
   }
 
   @Override
-  public int process() {
+  protected int processDocuments() {
     return eachFile(file -> {
       String id = getId(file);
+      if (repositoryResolver != null) {
+        repositoryResolver.strip(file);
+      }
+
       IndexDocument document = createDocument(id, file);
 
       addDocument(document);
@@ -26,6 +26,8 @@ import java.util.List;
 import org.icgc.dcc.dcc.common.es.core.DocumentWriter;
 import org.icgc.dcc.dcc.common.es.model.IndexDocument;
 import org.icgc.dcc.repository.index.model.DocumentType;
+import org.icgc.dcc.repository.index.util.DocumentCheckpoint;
+import org.icgc.dcc.repository.index.util.IndexMetrics;
 import org.icgc.dcc.repository.index.util.TarArchiveDocumentWriter;
 
 import com.fasterxml.jackson.databind.node.ArrayNode;
@@ -37,12 +39,12 @@ import lombok.val;
 public class FileTextDocumentProcessor extends DocumentProcessor {
 
   public FileTextDocumentProcessor(MongoClientURI mongoUri, DocumentWriter documentWriter,
-      TarArchiveDocumentWriter archiveWriter) {
-    super(mongoUri, () -> DocumentType.FILE_TEXT.getId(), documentWriter, archiveWriter);
+      TarArchiveDocumentWriter archiveWriter, IndexMetrics metrics, DocumentCheckpoint checkpoint) {
+    super(mongoUri, DocumentType.FILE_TEXT, documentWriter, archiveWriter, metrics, checkpoint);
   }
 
   @Override
-  public int process() {
+  protected int processDocuments() {
     return eachFile(this::addDocument);
   }
 
@@ -27,6 +27,8 @@ import org.icgc.dcc.repository.core.model.Repositories;
 import org.icgc.dcc.repository.core.model.Repository;
 import org.icgc.dcc.repository.core.model.RepositoryAccess;
 import org.icgc.dcc.repository.index.model.DocumentType;
+import org.icgc.dcc.repository.index.util.DocumentCheckpoint;
+import org.icgc.dcc.repository.index.util.IndexMetrics;
 import org.icgc.dcc.repository.index.util.TarArchiveDocumentWriter;
 
 import com.mongodb.MongoClientURI;
@@ -36,12 +38,12 @@ import lombok.val;
 public class RepositoryDocumentProcessor extends DocumentProcessor {
 
   public RepositoryDocumentProcessor(MongoClientURI mongoUri, DocumentWriter documentWriter,
-      TarArchiveDocumentWriter archiveWriter) {
-    super(mongoUri, () -> DocumentType.REPOSITORY.getId(), documentWriter, archiveWriter);
+      TarArchiveDocumentWriter archiveWriter, IndexMetrics metrics, DocumentCheckpoint checkpoint) {
+    super(mongoUri, DocumentType.REPOSITORY, documentWriter, archiveWriter, metrics, checkpoint);
   }
 
   @Override
-  public int process() {
+  protected int processDocuments() {
     int count = 0;
     for (val repository : Repositories.getRepositories()) {
       val document = createDocument(repository);
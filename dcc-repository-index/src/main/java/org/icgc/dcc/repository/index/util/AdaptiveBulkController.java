@@ -0,0 +1,120 @@
+/*
+ * Copyright (c) 2016 The Ontario Institute for Cancer Research. All rights reserved.
+ *                                                                                                               
+ * This program and the accompanying materials are made available under the terms of the GNU Public License v3.0.
+ * You should have received a copy of the GNU General Public License along with                                  
+ * this program. If not, see <http://www.gnu.org/licenses/>.                                                     
+ *                                                                                                               
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY                           
+ * EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES                          
+ * OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT                           
+ * SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT,                                
+ * INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED                          
+ * TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS;                               
+ * OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER                              
+ * IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN                         
+ * ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.icgc.dcc.repository.index.util;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+import lombok.Getter;
+import lombok.ToString;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Additive-increase / multiplicative-decrease controller of bulk batch size and concurrency.
+ * <p>
+ * Grows while bulk requests complete within the target latency and backs off when they are slow or when the cluster
+ * rejects items because its write queues are full.
+ */
+@Slf4j
+@ToString
+public class AdaptiveBulkController {
+
+  /**
+   * Constants.
+   */
+  public static final int DEFAULT_MIN_BATCH_SIZE = 100;
+  public static final int DEFAULT_MAX_BATCH_SIZE = 10_000;
+  public static final int DEFAULT_MIN_CONCURRENCY = 1;
+  public static final int DEFAULT_MAX_CONCURRENCY = 8;
+  public static final long DEFAULT_TARGET_LATENCY_MS = 1_000;
+
+  /**
+   * Number of consecutive healthy bulks before concurrency is increased.
+   */
+  private static final int CONCURRENCY_INCREASE_INTERVAL = 10;
+
+  /**
+   * Configuration.
+   */
+  private final int minBatchSize;
+  private final int maxBatchSize;
+  private final int batchSizeIncrement;
+  private final int minConcurrency;
+  private final int maxConcurrency;
+  private final long targetLatencyMs;
+
+  /**
+   * State.
+   */
+  @Getter
+  private int batchSize;
+  @Getter
+  private int concurrency;
+  private int healthyCount;
+
+  public AdaptiveBulkController() {
+    this(DEFAULT_MIN_BATCH_SIZE, DEFAULT_MAX_BATCH_SIZE, DEFAULT_MIN_CONCURRENCY, DEFAULT_MAX_CONCURRENCY,
+        DEFAULT_TARGET_LATENCY_MS);
+  }
+
+  public AdaptiveBulkController(int minBatchSize, int maxBatchSize, int minConcurrency, int maxConcurrency,
+      long targetLatencyMs) {
+    checkArgument(0 < minBatchSize && minBatchSize <= maxBatchSize, "Invalid batch size range");
+    checkArgument(0 < minConcurrency && minConcurrency <= maxConcurrency, "Invalid concurrency range");
+    checkArgument(targetLatencyMs > 0, "Invalid target latency");
+    this.minBatchSize = minBatchSize;
+    this.maxBatchSize = maxBatchSize;
+    this.batchSizeIncrement = minBatchSize;
+    this.minConcurrency = minConcurrency;
+    this.maxConcurrency = maxConcurrency;
+    this.targetLatencyMs = targetLatencyMs;
+
+    // Start conservatively and let the cluster tell us how much it can take
+    this.batchSize = Math.max(minBatchSize, Math.min(maxBatchSize, 10 * minBatchSize));
+    this.concurrency = minConcurrency;
+  }
+
+  /**
+   * Adjusts the batch size and concurrency given the outcome of a completed bulk request.
+   * 
+   * @param latencyMs the round trip time of the bulk request
+   * @param rejections the number of items rejected by the cluster
+   */
+  public synchronized void onBulk(long latencyMs, int rejections) {
+    if (rejections > 0) {
+      // Overloaded: back off hard on both dimensions
+      batchSize = Math.max(minBatchSize, batchSize / 2);
+      concurrency = Math.max(minConcurrency, concurrency / 2);
+      healthyCount = 0;
+
+      log.info("Bulk rejected {} item(s), backing off to batch size {} and concurrency {}",
+          rejections, batchSize, concurrency);
+    } else if (latencyMs > targetLatencyMs) {
+      // Slow: shrink batches gently so requests stay within the target
+      batchSize = Math.max(minBatchSize, batchSize * 3 / 4);
+      healthyCount = 0;
+    } else {
+      // Healthy: probe for more throughput
+      batchSize = Math.min(maxBatchSize, batchSize + batchSizeIncrement);
+      if (++healthyCount >= CONCURRENCY_INCREASE_INTERVAL) {
+        concurrency = Math.min(maxConcurrency, concurrency + 1);
+        healthyCount = 0;
+      }
+    }
+  }
+
+}
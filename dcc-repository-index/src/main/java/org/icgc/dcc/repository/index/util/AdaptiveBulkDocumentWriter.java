@@ -0,0 +1,274 @@
+/*
+ * Copyright (c) 2016 The Ontario Institute for Cancer Research. All rights reserved.
+ *                                                                                                               
+ * This program and the accompanying materials are made available under the terms of the GNU Public License v3.0.
+ * You should have received a copy of the GNU General Public License along with                                  
+ * this program. If not, see <http://www.gnu.org/licenses/>.                                                     
+ *                                                                                                               
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY                           
+ * EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES                          
+ * OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT                           
+ * SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT,                                
+ * INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED                          
+ * TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS;                               
+ * OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER                              
+ * IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN                         
+ * ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.icgc.dcc.repository.index.util;
+
+import static com.google.common.base.Preconditions.checkState;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static org.elasticsearch.rest.RestStatus.TOO_MANY_REQUESTS;
+import static org.icgc.dcc.common.core.json.Jackson.DEFAULT;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Phaser;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.elasticsearch.ExceptionsHelper;
+import org.elasticsearch.action.ActionListener;
+import org.elasticsearch.action.bulk.BulkResponse;
+import org.elasticsearch.client.Client;
+import org.elasticsearch.common.util.concurrent.EsRejectedExecutionException;
+import org.icgc.dcc.dcc.common.es.core.DocumentWriter;
+import org.icgc.dcc.dcc.common.es.model.IndexDocument;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
+
+import lombok.NonNull;
+import lombok.val;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * {@link DocumentWriter} whose bulk batch size and number of in-flight bulk requests are driven by an
+ * {@link AdaptiveBulkController}.
+ * <p>
+ * Items rejected by the cluster are retried with jittered exponential backoff. Any other item failure is fatal and
+ * surfaced on {@link #close()}.
+ */
+@Slf4j
+public class AdaptiveBulkDocumentWriter implements DocumentWriter {
+
+  /**
+   * Constants.
+   */
+  private static final int MAX_RETRIES = 10;
+  private static final long INITIAL_BACKOFF_MS = 100;
+  private static final long MAX_BACKOFF_MS = 30_000;
+
+  /**
+   * Configuration.
+   */
+  private final String indexName;
+
+  /**
+   * Dependencies.
+   */
+  private final Client client;
+  private final AdaptiveBulkController controller;
+  private final ScheduledExecutorService retryScheduler = Executors.newSingleThreadScheduledExecutor();
+
+  /**
+   * State.
+   */
+  private List<IndexDocument> batch = Lists.newArrayList();
+  private final Object inFlightLock = new Object();
+  private int inFlight;
+  private final Phaser pending = new Phaser(1);
+  private final AtomicReference<Throwable> failure = new AtomicReference<>();
+
+  public AdaptiveBulkDocumentWriter(@NonNull Client client, @NonNull String indexName,
+      @NonNull AdaptiveBulkController controller) {
+    this.client = client;
+    this.indexName = indexName;
+    this.controller = controller;
+  }
+
+  @Override
+  public synchronized void write(@NonNull IndexDocument document) throws IOException {
+    checkFailure();
+
+    batch.add(document);
+    if (batch.size() >= controller.getBatchSize()) {
+      flush();
+    }
+  }
+
+  @Override
+  public synchronized void close() throws IOException {
+    try {
+      flush();
+
+      // Wait for all batches, including scheduled retries, to complete
+      pending.arriveAndAwaitAdvance();
+      log.info("Finished bulk writing to '{}' with {}", indexName, controller);
+    } finally {
+      retryScheduler.shutdownNow();
+    }
+
+    checkFailure();
+  }
+
+  private void flush() {
+    if (batch.isEmpty()) {
+      return;
+    }
+
+    val documents = ImmutableList.copyOf(batch);
+    batch = Lists.newArrayList();
+
+    pending.register();
+    execute(documents, 0);
+  }
+
+  /**
+   * Never throws since it also runs on the retry scheduler where exceptions would be lost. Any failure is recorded and
+   * the batch's {@link #pending} party deregistered so that {@link #close()} does not hang.
+   */
+  private void execute(List<IndexDocument> documents, int attempt) {
+    // Guards against a listener callback racing a synchronous throw from execute
+    val completed = new AtomicBoolean();
+    boolean acquired = false;
+    try {
+      acquire();
+      acquired = true;
+
+      val bulk = client.prepareBulk();
+      for (val document : documents) {
+        bulk.add(client.prepareIndex(indexName, document.getType().getIndexType(), document.getId())
+            .setSource(DEFAULT.writeValueAsBytes(document.getSource())));
+      }
+
+      val start = System.currentTimeMillis();
+      bulk.execute(new ActionListener<BulkResponse>() {
+
+        @Override
+        public void onResponse(BulkResponse response) {
+          if (!completed.compareAndSet(false, true)) {
+            return;
+          }
+
+          release();
+          onBulk(documents, attempt, response, System.currentTimeMillis() - start);
+        }
+
+        @Override
+        public void onFailure(Exception e) {
+          if (!completed.compareAndSet(false, true)) {
+            return;
+          }
+
+          release();
+          if (ExceptionsHelper.unwrapCause(e) instanceof EsRejectedExecutionException) {
+            // Whole request rejected
+            controller.onBulk(System.currentTimeMillis() - start, documents.size());
+            retry(documents, attempt);
+          } else {
+            fail(e);
+          }
+        }
+
+      });
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      fail(e);
+    } catch (Exception e) {
+      if (!completed.compareAndSet(false, true)) {
+        return;
+      }
+
+      if (acquired) {
+        release();
+      }
+      fail(e);
+    }
+  }
+
+  private void onBulk(List<IndexDocument> documents, int attempt, BulkResponse response, long latencyMs) {
+    val rejected = ImmutableList.<IndexDocument> builder();
+    int rejectedCount = 0;
+    for (val item : response.getItems()) {
+      if (!item.isFailed()) {
+        continue;
+      }
+
+      if (item.getFailure().getStatus() == TOO_MANY_REQUESTS) {
+        rejected.add(documents.get(item.getItemId()));
+        rejectedCount++;
+      } else {
+        fail(new IllegalStateException("Failed to index document with id " + item.getId() + " of type "
+            + item.getType() + ": " + item.getFailureMessage()));
+        return;
+      }
+    }
+
+    controller.onBulk(latencyMs, rejectedCount);
+    if (rejectedCount > 0) {
+      retry(rejected.build(), attempt);
+    } else {
+      pending.arriveAndDeregister();
+    }
+  }
+
+  private void retry(List<IndexDocument> documents, int attempt) {
+    if (attempt >= MAX_RETRIES) {
+      fail(new IllegalStateException("Giving up on " + documents.size() + " rejected document(s) after "
+          + attempt + " retries"));
+      return;
+    }
+
+    val delayMs = getBackoffMs(attempt);
+    log.debug("Retrying {} rejected document(s) in {} ms (attempt {})", documents.size(), delayMs, attempt + 1);
+    try {
+      retryScheduler.schedule(() -> execute(documents, attempt + 1), delayMs, MILLISECONDS);
+    } catch (Exception e) {
+      fail(e);
+    }
+  }
+
+  private void fail(Throwable t) {
+    log.error("Bulk failure: ", t);
+    failure.compareAndSet(null, t);
+    pending.arriveAndDeregister();
+  }
+
+  private void checkFailure() throws IOException {
+    val t = failure.get();
+    if (t != null) {
+      throw new IOException("Error bulk writing to index '" + indexName + "'", t);
+    }
+  }
+
+  private void acquire() throws InterruptedException {
+    synchronized (inFlightLock) {
+      while (inFlight >= controller.getConcurrency()) {
+        inFlightLock.wait();
+      }
+
+      inFlight++;
+    }
+  }
+
+  private void release() {
+    synchronized (inFlightLock) {
+      inFlight--;
+      inFlightLock.notifyAll();
+    }
+  }
+
+  /**
+   * "Full jitter" backoff: uniformly random in {@code [0, min(max, initial * 2^attempt)]}.
+   */
+  private static long getBackoffMs(int attempt) {
+    val ceiling = Math.min(MAX_BACKOFF_MS, INITIAL_BACKOFF_MS << Math.min(attempt, 20));
+    return ThreadLocalRandom.current().nextLong(ceiling + 1);
+  }
+
+}
@@ -0,0 +1,140 @@
+/*
+ * Copyright (c) 2016 The Ontario Institute for Cancer Research. All rights reserved.
+ *                                                                                                               
+ * This program and the accompanying materials are made available under the terms of the GNU Public License v3.0.
+ * You should have received a copy of the GNU General Public License along with                                  
+ * this program. If not, see <http://www.gnu.org/licenses/>.                                                     
+ *                                                                                                               
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY                           
+ * EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES                          
+ * OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT                           
+ * SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT,                                
+ * INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED                          
+ * TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS;                               
+ * OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER                              
+ * IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN                         
+ * ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.icgc.dcc.repository.index.util;
+
+import java.util.Map;
+
+import org.icgc.dcc.repository.index.model.DocumentType;
+
+import com.google.common.collect.Maps;
+
+import lombok.Getter;
+import lombok.NonNull;
+import lombok.val;
+
+/**
+ * Tracks which documents of a {@link DocumentType} have been acknowledged by Elasticsearch.
+ * <p>
+ * Ordered types are fed in ascending file {@code id} order so that progress can be summarized by the largest
+ * contiguously acknowledged id (the watermark). Unordered types are all-or-nothing and only track completion.
+ */
+public class DocumentCheckpoint {
+
+  /**
+   * Configuration.
+   */
+  @Getter
+  private final DocumentType type;
+  @Getter
+  private final boolean enabled;
+  private final boolean ordered;
+
+  /**
+   * State of the run being resumed.
+   */
+  private final String resumeFileId;
+  private final boolean resumeComplete;
+
+  /**
+   * State.
+   */
+  private final Map<String, Boolean> pending = Maps.newLinkedHashMap();
+  private String lastFileId;
+  private boolean finished;
+
+  public DocumentCheckpoint(@NonNull DocumentType type, String resumeFileId, boolean resumeComplete) {
+    this(type, true, resumeFileId, resumeComplete);
+  }
+
+  private DocumentCheckpoint(DocumentType type, boolean enabled, String resumeFileId, boolean resumeComplete) {
+    this.type = type;
+    this.enabled = enabled;
+    this.ordered = isOrdered(type);
+    this.resumeFileId = ordered ? resumeFileId : null;
+    this.resumeComplete = resumeComplete;
+  }
+
+  public static DocumentCheckpoint disabled(@NonNull DocumentType type) {
+    return new DocumentCheckpoint(type, false, null, false);
+  }
+
+  /**
+   * @return {@code true} if the document with {@code id} was acknowledged in the run being resumed
+   */
+  public synchronized boolean isAcknowledged(@NonNull String id) {
+    if (resumeComplete) {
+      return true;
+    }
+
+    return resumeFileId != null && id.compareTo(resumeFileId) <= 0;
+  }
+
+  public synchronized void register(@NonNull String id) {
+    if (enabled) {
+      pending.put(id, false);
+    }
+  }
+
+  public synchronized void acknowledge(@NonNull String id) {
+    if (!pending.containsKey(id)) {
+      return;
+    }
+
+    pending.put(id, true);
+
+    // Advance the watermark over the contiguous acknowledged prefix
+    val iterator = pending.entrySet().iterator();
+    while (iterator.hasNext()) {
+      val entry = iterator.next();
+      if (!entry.getValue()) {
+        break;
+      }
+
+      lastFileId = entry.getKey();
+      iterator.remove();
+    }
+  }
+
+  /**
+   * Signals that all documents of the type have been registered.
+   */
+  public synchronized void finish() {
+    finished = true;
+  }
+
+  public synchronized boolean isComplete() {
+    return resumeComplete || finished && pending.isEmpty();
+  }
+
+  /**
+   * @return the largest file id below which all documents have been acknowledged, if ordered
+   */
+  public synchronized String getLastFileId() {
+    if (!ordered) {
+      return null;
+    }
+
+    return lastFileId != null ? lastFileId : resumeFileId;
+  }
+
+  private static boolean isOrdered(DocumentType type) {
+    // Types with one document per file
+    return type == DocumentType.FILE_CENTRIC || type == DocumentType.FILE_TEXT;
+  }
+
+}
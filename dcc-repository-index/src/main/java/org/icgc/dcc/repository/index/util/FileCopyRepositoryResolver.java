@@ -0,0 +1,139 @@
+/*
+ * Copyright (c) 2016 The Ontario Institute for Cancer Research. All rights reserved.
+ *                                                                                                               
+ * This program and the accompanying materials are made available under the terms of the GNU Public License v3.0.
+ * You should have received a copy of the GNU General Public License along with                                  
+ * this program. If not, see <http://www.gnu.org/licenses/>.                                                     
+ *                                                                                                               
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY                           
+ * EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES                          
+ * OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT                           
+ * SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT,                                
+ * INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED                          
+ * TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS;                               
+ * OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER                              
+ * IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN                         
+ * ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.icgc.dcc.repository.index.util;
+
+import static org.icgc.dcc.common.core.json.Jackson.DEFAULT;
+
+import java.util.Map;
+
+import org.icgc.dcc.repository.core.model.Repository;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.google.common.collect.ImmutableMap;
+
+import lombok.NonNull;
+import lombok.RequiredArgsConstructor;
+import lombok.val;
+
+/**
+ * Strips and rehydrates the repository fields that are denormalized into every {@code file_copies} element of a
+ * {@code file-centric} document.
+ * <p>
+ * The values are owned by the {@code repository} document of the copy's {@code repo_code}, so only values equal to
+ * those are stripped and rehydration is lossless.
+ */
+@RequiredArgsConstructor
+public class FileCopyRepositoryResolver {
+
+  /**
+   * Constants - file copy field name to repository document field name.
+   */
+  public static final Map<String, String> STRIPPABLE_FIELD_NAMES = ImmutableMap.of(
+      "repo_base_url", "baseUrl",
+      "repo_data_path", "dataPath",
+      "repo_metadata_path", "metadataPath");
+
+  /**
+   * Constants - file copy fields that stay indexed but are excluded from {@code _source} by the mapping.
+   */
+  public static final Map<String, String> EXCLUDED_FIELD_NAMES = ImmutableMap.of(
+      "repo_name", "name",
+      "repo_country", "country");
+
+  /**
+   * Repository documents by repository code.
+   */
+  @NonNull
+  private final Map<String, JsonNode> repositories;
+
+  public static FileCopyRepositoryResolver fromDocuments(@NonNull Iterable<? extends JsonNode> repositoryDocuments) {
+    val repositories = ImmutableMap.<String, JsonNode> builder();
+    for (val repository : repositoryDocuments) {
+      repositories.put(repository.get("code").textValue(), repository);
+    }
+
+    return new FileCopyRepositoryResolver(repositories.build());
+  }
+
+  public static FileCopyRepositoryResolver fromRepositories(@NonNull Iterable<Repository> repositories) {
+    val documents = ImmutableMap.<String, JsonNode> builder();
+    for (val repository : repositories) {
+      val document = DEFAULT.createObjectNode()
+          .put("code", repository.getCode())
+          .put("name", repository.getName())
+          .put("country", repository.getCountry())
+          .put("baseUrl", repository.getBaseUrl())
+          .put("dataPath", repository.getType().getDataPath())
+          .put("metadataPath", repository.getType().getMetadataPath());
+
+      documents.put(repository.getCode(), document);
+    }
+
+    return new FileCopyRepositoryResolver(documents.build());
+  }
+
+  /**
+   * Removes the repository fields of each file copy that can be resolved from its repository.
+   */
+  public void strip(@NonNull ObjectNode file) {
+    for (val fileCopy : file.path("file_copies")) {
+      val repository = getRepository(fileCopy);
+      if (repository == null) {
+        continue;
+      }
+
+      for (val entry : STRIPPABLE_FIELD_NAMES.entrySet()) {
+        val value = fileCopy.get(entry.getKey());
+        if (value != null && value.equals(repository.get(entry.getValue()))) {
+          ((ObjectNode) fileCopy).remove(entry.getKey());
+        }
+      }
+    }
+  }
+
+  /**
+   * Restores the repository fields of each file copy that are absent, e.g. from a {@code _source} of a search hit.
+   */
+  public void rehydrate(@NonNull ObjectNode file) {
+    for (val fileCopy : file.path("file_copies")) {
+      val repository = getRepository(fileCopy);
+      if (repository == null) {
+        continue;
+      }
+
+      rehydrate((ObjectNode) fileCopy, repository, STRIPPABLE_FIELD_NAMES);
+      rehydrate((ObjectNode) fileCopy, repository, EXCLUDED_FIELD_NAMES);
+    }
+  }
+
+  private JsonNode getRepository(JsonNode fileCopy) {
+    val repoCode = fileCopy.path("repo_code").textValue();
+    return repoCode == null ? null : repositories.get(repoCode);
+  }
+
+  private static void rehydrate(ObjectNode fileCopy, JsonNode repository, Map<String, String> fieldNames) {
+    for (val entry : fieldNames.entrySet()) {
+      val value = repository.get(entry.getValue());
+      if (!fileCopy.has(entry.getKey()) && value != null && !value.isNull()) {
+        fileCopy.set(entry.getKey(), value);
+      }
+    }
+  }
+
+}
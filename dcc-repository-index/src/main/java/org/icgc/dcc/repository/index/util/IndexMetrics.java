@@ -0,0 +1,231 @@
+/*
+ * Copyright (c) 2016 The Ontario Institute for Cancer Research. All rights reserved.
+ *                                                                                                               
+ * This program and the accompanying materials are made available under the terms of the GNU Public License v3.0.
+ * You should have received a copy of the GNU General Public License along with                                  
+ * this program. If not, see <http://www.gnu.org/licenses/>.                                                     
+ *                                                                                                               
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY                           
+ * EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES                          
+ * OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT                           
+ * SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT,                                
+ * INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED                          
+ * TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS;                               
+ * OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER                              
+ * IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN                         
+ * ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.icgc.dcc.repository.index.util;
+
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+import static org.icgc.dcc.common.core.json.Jackson.DEFAULT;
+
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.icgc.dcc.repository.index.model.DocumentType;
+
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.google.common.collect.ImmutableMap;
+
+import lombok.Getter;
+import lombok.NonNull;
+import lombok.val;
+
+/**
+ * Throughput and latency measurements of the index step, broken down by {@link DocumentType}.
+ * <p>
+ * Separates time spent reading from Mongo, serializing with Jackson, writing the gzipped archive and waiting on
+ * Elasticsearch so that the bottleneck of a build can be identified. Safe for concurrent use.
+ */
+public class IndexMetrics {
+
+  /**
+   * State.
+   */
+  private final Map<DocumentType, DocumentTypeMetrics> documentTypes = createDocumentTypes();
+  private final AtomicLong archiveBytes = new AtomicLong();
+  private final AtomicLong archiveCompressedBytes = new AtomicLong();
+
+  public DocumentTypeMetrics getDocumentType(@NonNull DocumentType type) {
+    return documentTypes.get(type);
+  }
+
+  public DocumentTypeMetrics getDocumentType(@NonNull String typeName) {
+    for (val type : DocumentType.values()) {
+      if (type.getId().equals(typeName)) {
+        return getDocumentType(type);
+      }
+    }
+
+    return null;
+  }
+
+  public void recordArchive(long uncompressedBytes, long compressedBytes) {
+    archiveBytes.set(uncompressedBytes);
+    archiveCompressedBytes.set(compressedBytes);
+  }
+
+  public ObjectNode toJson() {
+    val json = DEFAULT.createObjectNode();
+
+    val types = json.putObject("documentTypes");
+    for (val entry : documentTypes.entrySet()) {
+      types.set(entry.getKey().getId(), entry.getValue().toJson());
+    }
+
+    val archive = json.putObject("archive");
+    archive.put("bytes", archiveBytes.get());
+    archive.put("compressedBytes", archiveCompressedBytes.get());
+    archive.put("compressionRatio", ratio(archiveBytes.get(), archiveCompressedBytes.get()));
+
+    return json;
+  }
+
+  @Override
+  public String toString() {
+    return toJson().toString();
+  }
+
+  private static Map<DocumentType, DocumentTypeMetrics> createDocumentTypes() {
+    val documentTypes = ImmutableMap.<DocumentType, DocumentTypeMetrics> builder();
+    for (val type : DocumentType.values()) {
+      documentTypes.put(type, new DocumentTypeMetrics());
+    }
+
+    return documentTypes.build();
+  }
+
+  private static double ratio(long numerator, long denominator) {
+    return denominator == 0 ? 0 : (double) numerator / denominator;
+  }
+
+  private static double millis(long nanos) {
+    return NANOSECONDS.toMicros(nanos) / 1000.0;
+  }
+
+  public static class DocumentTypeMetrics {
+
+    /**
+     * Timing.
+     */
+    private final AtomicLong startNanos = new AtomicLong();
+    private final AtomicLong stopNanos = new AtomicLong();
+
+    /**
+     * Mongo.
+     */
+    private final AtomicLong cursorReads = new AtomicLong();
+    private final AtomicLong cursorReadNanos = new AtomicLong();
+
+    /**
+     * Jackson.
+     */
+    @Getter
+    private final AtomicLong documents = new AtomicLong();
+    private final AtomicLong serializedBytes = new AtomicLong();
+    private final AtomicLong serializeNanos = new AtomicLong();
+
+    /**
+     * Archive.
+     */
+    private final AtomicLong archiveWriteNanos = new AtomicLong();
+
+    /**
+     * Elasticsearch.
+     */
+    private final AtomicLong writeNanos = new AtomicLong();
+    @Getter
+    private final LatencyHistogram bulkLatency = new LatencyHistogram();
+    private final AtomicLong bulkItems = new AtomicLong();
+    private final AtomicLong bulkFailures = new AtomicLong();
+    private final AtomicLong bulkRejections = new AtomicLong();
+    private final AtomicLong bulkRetries = new AtomicLong();
+
+    public void start() {
+      startNanos.set(System.nanoTime());
+    }
+
+    public void stop() {
+      stopNanos.set(System.nanoTime());
+    }
+
+    public void recordCursorRead(long nanos) {
+      cursorReads.incrementAndGet();
+      cursorReadNanos.addAndGet(nanos);
+    }
+
+    public void recordDocument(long bytes, long nanos) {
+      documents.incrementAndGet();
+      serializedBytes.addAndGet(bytes);
+      serializeNanos.addAndGet(nanos);
+    }
+
+    public void recordArchiveWrite(long nanos) {
+      archiveWriteNanos.addAndGet(nanos);
+    }
+
+    public void recordWrite(long nanos) {
+      writeNanos.addAndGet(nanos);
+    }
+
+    public void recordBulk(long latencyMs, int items) {
+      bulkLatency.record(latencyMs);
+      bulkItems.addAndGet(items);
+    }
+
+    public void recordBulkFailures(int failures) {
+      bulkFailures.addAndGet(failures);
+    }
+
+    public void recordBulkRejections(int rejections) {
+      bulkRejections.addAndGet(rejections);
+    }
+
+    public void recordBulkRetries(int retries) {
+      bulkRetries.addAndGet(retries);
+    }
+
+    public long getElapsedNanos() {
+      val start = startNanos.get();
+      if (start == 0) {
+        return 0;
+      }
+
+      val stop = stopNanos.get();
+      return (stop == 0 ? System.nanoTime() : stop) - start;
+    }
+
+    public ObjectNode toJson() {
+      val elapsedSeconds = getElapsedNanos() / 1e9;
+
+      val json = DEFAULT.createObjectNode();
+      json.put("documents", documents.get());
+      json.put("elapsedMs", millis(getElapsedNanos()));
+      json.put("docsPerSec", elapsedSeconds == 0 ? 0 : documents.get() / elapsedSeconds);
+
+      val mongo = json.putObject("mongo");
+      mongo.put("cursorReads", cursorReads.get());
+      mongo.put("cursorReadMs", millis(cursorReadNanos.get()));
+
+      val jackson = json.putObject("jackson");
+      jackson.put("serializedBytes", serializedBytes.get());
+      jackson.put("serializeMs", millis(serializeNanos.get()));
+
+      val archive = json.putObject("archive");
+      archive.put("writeMs", millis(archiveWriteNanos.get()));
+
+      val elasticsearch = json.putObject("elasticsearch");
+      elasticsearch.put("writeMs", millis(writeNanos.get()));
+      elasticsearch.put("bulkItems", bulkItems.get());
+      elasticsearch.put("bulkFailures", bulkFailures.get());
+      elasticsearch.put("bulkRejections", bulkRejections.get());
+      elasticsearch.put("bulkRetries", bulkRetries.get());
+      elasticsearch.set("bulkLatency", bulkLatency.toJson());
+
+      return json;
+    }
+
+  }
+
+}
@@ -0,0 +1,140 @@
+/*
+ * Copyright (c) 2016 The Ontario Institute for Cancer Research. All rights reserved.
+ *                                                                                                               
+ * This program and the accompanying materials are made available under the terms of the GNU Public License v3.0.
+ * You should have received a copy of the GNU General Public License along with                                  
+ * this program. If not, see <http://www.gnu.org/licenses/>.                                                     
+ *                                                                                                               
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY                           
+ * EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES                          
+ * OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT                           
+ * SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT,                                
+ * INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED                          
+ * TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS;                               
+ * OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER                              
+ * IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN                         
+ * ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.icgc.dcc.repository.index.util;
+
+import static org.elasticsearch.rest.RestStatus.TOO_MANY_REQUESTS;
+
+import java.util.List;
+import java.util.Set;
+import java.util.function.Consumer;
+
+import org.elasticsearch.action.Action;
+import org.elasticsearch.action.ActionListener;
+import org.elasticsearch.action.ActionRequest;
+import org.elasticsearch.action.ActionRequestBuilder;
+import org.elasticsearch.action.ActionResponse;
+import org.elasticsearch.action.bulk.BulkItemResponse;
+import org.elasticsearch.action.bulk.BulkResponse;
+import org.elasticsearch.client.Client;
+import org.elasticsearch.client.FilterClient;
+import org.icgc.dcc.repository.index.util.IndexMetrics.DocumentTypeMetrics;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+
+import lombok.NonNull;
+import lombok.val;
+
+/**
+ * {@link Client} decorator that records bulk latency, rejections and retries into {@link IndexMetrics} and
+ * publishes bulk item responses to registered listeners.
+ * <p>
+ * The bulk processor used by the document writer is not observable, so measurements are taken at the transport
+ * boundary.
+ */
+public class InstrumentedClient extends FilterClient {
+
+  /**
+   * Metrics.
+   */
+  private final IndexMetrics metrics;
+
+  /**
+   * State.
+   */
+  private final Set<String> rejectedIds = Sets.newConcurrentHashSet();
+  private final List<Consumer<BulkItemResponse>> itemListeners = Lists.newCopyOnWriteArrayList();
+
+  public InstrumentedClient(@NonNull Client client, @NonNull IndexMetrics metrics) {
+    super(client);
+    this.metrics = metrics;
+  }
+
+  /**
+   * Registers a {@code listener} to be notified of every bulk item response, e.g. to track acknowledgements.
+   */
+  public void addItemListener(@NonNull Consumer<BulkItemResponse> listener) {
+    itemListeners.add(listener);
+  }
+
+  @Override
+  protected <Request extends ActionRequest<Request>, Response extends ActionResponse, RequestBuilder extends ActionRequestBuilder<Request, Response, RequestBuilder>> void doExecute(
+      Action<Request, Response, RequestBuilder> action, Request request, ActionListener<Response> listener) {
+    val start = System.currentTimeMillis();
+
+    super.doExecute(action, request, new ActionListener<Response>() {
+
+      @Override
+      public void onResponse(Response response) {
+        if (response instanceof BulkResponse) {
+          recordBulk((BulkResponse) response, System.currentTimeMillis() - start);
+        }
+
+        listener.onResponse(response);
+      }
+
+      @Override
+      public void onFailure(Exception e) {
+        listener.onFailure(e);
+      }
+
+    });
+  }
+
+  private void recordBulk(BulkResponse response, long latencyMs) {
+    val items = response.getItems();
+    for (val listener : itemListeners) {
+      for (val item : items) {
+        listener.accept(item);
+      }
+    }
+
+    // A shared document writer mixes document types within a bulk, so each item is charged to its own type
+    val typeItems = Maps.<DocumentTypeMetrics, Integer> newIdentityHashMap();
+    for (val item : items) {
+      val typeMetrics = metrics.getDocumentType(item.getType());
+      if (typeMetrics == null) {
+        continue;
+      }
+
+      typeItems.merge(typeMetrics, 1, Integer::sum);
+
+      val key = getKey(item);
+      if (rejectedIds.remove(key)) {
+        typeMetrics.recordBulkRetries(1);
+      }
+
+      if (item.isFailed()) {
+        typeMetrics.recordBulkFailures(1);
+
+        if (item.getFailure().getStatus() == TOO_MANY_REQUESTS) {
+          typeMetrics.recordBulkRejections(1);
+          rejectedIds.add(key);
+        }
+      }
+    }
+
+    typeItems.forEach((typeMetrics, count) -> typeMetrics.recordBulk(latencyMs, count));
+  }
+
+  private static String getKey(BulkItemResponse item) {
+    return item.getType() + "/" + item.getId();
+  }
+
+}
@@ -0,0 +1,120 @@
+/*
+ * Copyright (c) 2016 The Ontario Institute for Cancer Research. All rights reserved.
+ *                                                                                                               
+ * This program and the accompanying materials are made available under the terms of the GNU Public License v3.0.
+ * You should have received a copy of the GNU General Public License along with                                  
+ * this program. If not, see <http://www.gnu.org/licenses/>.                                                     
+ *                                                                                                               
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY                           
+ * EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES                          
+ * OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT                           
+ * SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT,                                
+ * INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED                          
+ * TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS;                               
+ * OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER                              
+ * IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN                         
+ * ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.icgc.dcc.repository.index.util;
+
+import static org.icgc.dcc.common.core.json.Jackson.DEFAULT;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import lombok.val;
+
+/**
+ * Lock-free, fixed bucket latency histogram in milliseconds.
+ */
+public class LatencyHistogram {
+
+  /**
+   * Constants.
+   */
+  private static final long[] BUCKET_BOUNDS_MS =
+      { 1, 2, 5, 10, 20, 50, 100, 200, 500, 1_000, 2_000, 5_000, 10_000, 30_000, 60_000, Long.MAX_VALUE };
+
+  /**
+   * State.
+   */
+  private final AtomicLongArray buckets = new AtomicLongArray(BUCKET_BOUNDS_MS.length);
+  private final AtomicLong count = new AtomicLong();
+  private final AtomicLong totalMs = new AtomicLong();
+  private final AtomicLong maxMs = new AtomicLong();
+
+  public void record(long latencyMs) {
+    buckets.incrementAndGet(getBucket(latencyMs));
+    count.incrementAndGet();
+    totalMs.addAndGet(latencyMs);
+    maxMs.accumulateAndGet(latencyMs, Math::max);
+  }
+
+  public long getCount() {
+    return count.get();
+  }
+
+  public double getMeanMs() {
+    val n = count.get();
+    return n == 0 ? 0 : (double) totalMs.get() / n;
+  }
+
+  public long getMaxMs() {
+    return maxMs.get();
+  }
+
+  /**
+   * @return the upper bound of the bucket that contains the {@code percentile} (0-100) observation
+   */
+  public long getPercentileMs(double percentile) {
+    val n = count.get();
+    if (n == 0) {
+      return 0;
+    }
+
+    val rank = (long) Math.ceil(percentile / 100.0 * n);
+    long seen = 0;
+    for (int i = 0; i < buckets.length(); i++) {
+      seen += buckets.get(i);
+      if (seen >= rank) {
+        return Math.min(BUCKET_BOUNDS_MS[i], getMaxMs());
+      }
+    }
+
+    return getMaxMs();
+  }
+
+  public ObjectNode toJson() {
+    val json = DEFAULT.createObjectNode();
+    json.put("count", getCount());
+    json.put("meanMs", getMeanMs());
+    json.put("p50Ms", getPercentileMs(50));
+    json.put("p95Ms", getPercentileMs(95));
+    json.put("p99Ms", getPercentileMs(99));
+    json.put("maxMs", getMaxMs());
+
+    val histogram = json.putObject("buckets");
+    for (int i = 0; i < buckets.length(); i++) {
+      val bucketCount = buckets.get(i);
+      if (bucketCount > 0) {
+        val label = BUCKET_BOUNDS_MS[i] == Long.MAX_VALUE ? "inf" : "le" + BUCKET_BOUNDS_MS[i];
+        histogram.put(label, bucketCount);
+      }
+    }
+
+    return json;
+  }
+
+  private static int getBucket(long latencyMs) {
+    for (int i = 0; i < BUCKET_BOUNDS_MS.length; i++) {
+      if (latencyMs <= BUCKET_BOUNDS_MS[i]) {
+        return i;
+      }
+    }
+
+    return BUCKET_BOUNDS_MS.length - 1;
+  }
+
+}
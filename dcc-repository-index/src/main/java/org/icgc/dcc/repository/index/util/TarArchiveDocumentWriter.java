@@ -26,14 +26,12 @@ import java.io.OutputStream;
 
 import org.apache.commons.compress.archivers.tar.TarArchiveEntry;
 import org.apache.commons.compress.archivers.tar.TarArchiveOutputStream;
-import org.apache.commons.compress.utils.CountingOutputStream;
 import org.icgc.dcc.dcc.common.es.model.IndexDocument;
 import org.icgc.dcc.repository.index.core.RepositoryFileIndexes;
 import org.icgc.dcc.repository.index.model.DocumentType;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.node.ObjectNode;
-import com.google.common.io.ByteStreams;
 
 import lombok.NonNull;
 import lombok.SneakyThrows;
@@ -59,6 +57,7 @@ public class TarArchiveDocumentWriter implements Closeable {
    * Meta data.
    */
   private final String indexName;
+  private final boolean leanSource;
 
   /**
    * State.
@@ -66,27 +65,52 @@ public class TarArchiveDocumentWriter implements Closeable {
   private final TarArchiveOutputStream archive;
 
   public TarArchiveDocumentWriter(@NonNull String indexName, @NonNull OutputStream outputStream) throws IOException {
+    this(indexName, outputStream, false);
+  }
+
+  public TarArchiveDocumentWriter(@NonNull String indexName, @NonNull OutputStream outputStream, boolean leanSource)
+      throws IOException {
     // Create state
     this.indexName = indexName;
+    this.leanSource = leanSource;
     this.archive = createArchive(outputStream);
 
     addMetaEntries();
   }
 
   public void write(IndexDocument document) throws IOException {
+    write(document, serialize(document.getSource()));
+  }
+
+  /**
+   * Writes a {@code document} whose source has already been serialized to {@code bytes}.
+   */
+  public synchronized void write(IndexDocument document, byte[] bytes) throws IOException {
     val name = formatEntryName(document);
 
     try {
-      addEntry(name, document.getSource());
+      addEntry(name, bytes);
     } catch (Exception e) {
       throw new RuntimeException("Failed to write document with id " + document.getId() + " of type "
           + document.getType(), e);
     }
   }
 
+  /**
+   * @return the number of uncompressed bytes written to the archive so far
+   */
+  public long getBytesWritten() {
+    return archive.getBytesWritten();
+  }
+
+  @SneakyThrows
+  public static byte[] serialize(@NonNull ObjectNode source) {
+    return MAPPER.writeValueAsBytes(source);
+  }
+
   @Override
   @SneakyThrows
-  public void close() {
+  public synchronized void close() {
     log.info("Bytes written: {}", formatBytes(archive.getBytesWritten()));
 
     log.info("Closing archive...");
@@ -100,19 +124,21 @@ public class TarArchiveDocumentWriter implements Closeable {
     for (val type : DocumentType.values()) {
       val mappingEntryName = formatEntryName(type.getId(), MAPPING_FILE_NAME);
 
-      addEntry(mappingEntryName, RepositoryFileIndexes.getTypeMapping(type.getId()));
+      addEntry(mappingEntryName, RepositoryFileIndexes.getTypeMapping(type.getId(), leanSource));
     }
   }
 
   private void addEntry(String name, ObjectNode source) throws IOException {
-    val size = getSize(source);
+    addEntry(name, serialize(source));
+  }
 
+  private void addEntry(String name, byte[] bytes) throws IOException {
     // knapsack 2.x versions needs an extra directory so we embedded them under the index
     val entry = new TarArchiveEntry(formatEntryName(indexName, name));
-    entry.setSize(size);
+    entry.setSize(bytes.length);
 
     archive.putArchiveEntry(entry);
-    MAPPER.writeValue(archive, source);
+    archive.write(bytes);
     archive.closeArchiveEntry();
   }
 
@@ -128,12 +154,4 @@ public class TarArchiveDocumentWriter implements Closeable {
     return new TarArchiveOutputStream(outputStream);
   }
 
-  @SneakyThrows
-  private static long getSize(ObjectNode source) {
-    val counter = new CountingOutputStream(ByteStreams.nullOutputStream());
-    MAPPER.writeValue(counter, source);
-
-    return counter.getBytesWritten();
-  }
-
 }
@@ -19,6 +19,9 @@ package org.icgc.dcc.repository.index.core;
 
 import static org.assertj.core.api.Assertions.assertThat;
 
+import java.time.LocalDate;
+
+import org.icgc.dcc.repository.index.model.DocumentType;
 import org.junit.Test;
 
 import lombok.val;
@@ -34,4 +37,31 @@ public class RepositoryFileIndexesTest {
     assertThat(typeMapping.has(typeName)).isTrue();
   }
 
+  @Test
+  public void testGetTypeSettings() throws Exception {
+    val settings = RepositoryFileIndexes.getSettings(DocumentType.REPOSITORY);
+
+    assertThat(settings.get("index.number_of_shards").asInt()).isEqualTo(1);
+    assertThat(settings.has("analysis")).isTrue();
+  }
+
+  @Test
+  public void testIsRepoIndexName() throws Exception {
+    val indexAlias = "icgc-repository";
+    val isRepoIndexName = RepositoryFileIndexes.isRepoIndexName(indexAlias);
+
+    assertThat(isRepoIndexName.test("icgc-repository-20170101")).isTrue();
+    assertThat(isRepoIndexName.test("icgc-repository-20170101-file-centric")).isTrue();
+    assertThat(isRepoIndexName.test("icgc-repository-20170101-other")).isFalse();
+    assertThat(isRepoIndexName.test("icgc-release-20170101")).isFalse();
+  }
+
+  @Test
+  public void testGetIndexDate() throws Exception {
+    val indexAlias = "icgc-repository";
+    val indexName = RepositoryFileIndexes.getTypeIndexName("icgc-repository-20170101", DocumentType.DONOR_TEXT);
+
+    assertThat(RepositoryFileIndexes.getIndexDate(indexAlias, indexName)).isEqualTo(LocalDate.of(2017, 1, 1));
+  }
+
 }
@@ -0,0 +1,70 @@
+/*
+ * Copyright (c) 2016 The Ontario Institute for Cancer Research. All rights reserved.
+ *                                                                                                               
+ * This program and the accompanying materials are made available under the terms of the GNU Public License v3.0.
+ * You should have received a copy of the GNU General Public License along with                                  
+ * this program. If not, see <http://www.gnu.org/licenses/>.                                                     
+ *                                                                                                               
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY                           
+ * EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES                          
+ * OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT                           
+ * SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT,                                
+ * INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED                          
+ * TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS;                               
+ * OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER                              
+ * IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN                         
+ * ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.icgc.dcc.repository.index.util;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.Test;
+
+import lombok.val;
+
+public class AdaptiveBulkControllerTest {
+
+  @Test
+  public void testGrowsWhenHealthy() throws Exception {
+    val controller = new AdaptiveBulkController(100, 1000, 1, 4, 1000);
+    assertThat(controller.getBatchSize()).isEqualTo(1000);
+    assertThat(controller.getConcurrency()).isEqualTo(1);
+
+    for (int i = 0; i < 100; i++) {
+      controller.onBulk(100, 0);
+    }
+
+    assertThat(controller.getBatchSize()).isEqualTo(1000);
+    assertThat(controller.getConcurrency()).isEqualTo(4);
+  }
+
+  @Test
+  public void testShrinksWhenSlow() throws Exception {
+    val controller = new AdaptiveBulkController(100, 1000, 1, 4, 1000);
+    controller.onBulk(5000, 0);
+
+    assertThat(controller.getBatchSize()).isEqualTo(750);
+    assertThat(controller.getConcurrency()).isEqualTo(1);
+  }
+
+  @Test
+  public void testBacksOffWhenRejected() throws Exception {
+    val controller = new AdaptiveBulkController(100, 1000, 1, 4, 1000);
+    for (int i = 0; i < 30; i++) {
+      controller.onBulk(100, 0);
+    }
+    assertThat(controller.getConcurrency()).isEqualTo(4);
+
+    controller.onBulk(100, 1);
+    assertThat(controller.getBatchSize()).isEqualTo(500);
+    assertThat(controller.getConcurrency()).isEqualTo(2);
+
+    for (int i = 0; i < 10; i++) {
+      controller.onBulk(100, 1);
+    }
+    assertThat(controller.getBatchSize()).isEqualTo(100);
+    assertThat(controller.getConcurrency()).isEqualTo(1);
+  }
+
+}
@@ -0,0 +1,79 @@
+/*
+ * Copyright (c) 2016 The Ontario Institute for Cancer Research. All rights reserved.
+ *                                                                                                               
+ * This program and the accompanying materials are made available under the terms of the GNU Public License v3.0.
+ * You should have received a copy of the GNU General Public License along with                                  
+ * this program. If not, see <http://www.gnu.org/licenses/>.                                                     
+ *                                                                                                               
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY                           
+ * EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES                          
+ * OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT                           
+ * SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT,                                
+ * INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED                          
+ * TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS;                               
+ * OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER                              
+ * IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN                         
+ * ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.icgc.dcc.repository.index.util;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.icgc.dcc.repository.index.model.DocumentType;
+import org.junit.Test;
+
+import lombok.val;
+
+public class DocumentCheckpointTest {
+
+  @Test
+  public void testWatermark() throws Exception {
+    val checkpoint = new DocumentCheckpoint(DocumentType.FILE_CENTRIC, null, false);
+    checkpoint.register("FI1");
+    checkpoint.register("FI2");
+    checkpoint.register("FI3");
+
+    checkpoint.acknowledge("FI2");
+    assertThat(checkpoint.getLastFileId()).isNull();
+
+    checkpoint.acknowledge("FI1");
+    assertThat(checkpoint.getLastFileId()).isEqualTo("FI2");
+
+    checkpoint.finish();
+    assertThat(checkpoint.isComplete()).isFalse();
+
+    checkpoint.acknowledge("FI3");
+    assertThat(checkpoint.getLastFileId()).isEqualTo("FI3");
+    assertThat(checkpoint.isComplete()).isTrue();
+  }
+
+  @Test
+  public void testResume() throws Exception {
+    val checkpoint = new DocumentCheckpoint(DocumentType.FILE_TEXT, "FI2", false);
+    assertThat(checkpoint.isAcknowledged("FI1")).isTrue();
+    assertThat(checkpoint.isAcknowledged("FI2")).isTrue();
+    assertThat(checkpoint.isAcknowledged("FI3")).isFalse();
+    assertThat(checkpoint.getLastFileId()).isEqualTo("FI2");
+  }
+
+  @Test
+  public void testResumeUnordered() throws Exception {
+    val incomplete = new DocumentCheckpoint(DocumentType.DONOR_TEXT, "DO2", false);
+    assertThat(incomplete.isAcknowledged("DO1")).isFalse();
+    assertThat(incomplete.getLastFileId()).isNull();
+
+    val complete = new DocumentCheckpoint(DocumentType.DONOR_TEXT, null, true);
+    assertThat(complete.isAcknowledged("DO1")).isTrue();
+  }
+
+  @Test
+  public void testDisabled() throws Exception {
+    val checkpoint = DocumentCheckpoint.disabled(DocumentType.FILE_CENTRIC);
+    checkpoint.register("FI1");
+    checkpoint.finish();
+
+    assertThat(checkpoint.isAcknowledged("FI1")).isFalse();
+    assertThat(checkpoint.isComplete()).isTrue();
+  }
+
+}
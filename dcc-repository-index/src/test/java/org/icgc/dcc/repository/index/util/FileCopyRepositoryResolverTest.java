@@ -0,0 +1,58 @@
+/*
+ * Copyright (c) 2016 The Ontario Institute for Cancer Research. All rights reserved.
+ *                                                                                                               
+ * This program and the accompanying materials are made available under the terms of the GNU Public License v3.0.
+ * You should have received a copy of the GNU General Public License along with                                  
+ * this program. If not, see <http://www.gnu.org/licenses/>.                                                     
+ *                                                                                                               
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY                           
+ * EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES                          
+ * OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT                           
+ * SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT,                                
+ * INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED                          
+ * TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS;                               
+ * OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER                              
+ * IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN                         
+ * ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.icgc.dcc.repository.index.util;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.icgc.dcc.common.core.json.Jackson.DEFAULT;
+
+import org.icgc.dcc.repository.core.model.Repositories;
+import org.junit.Test;
+
+import lombok.val;
+
+public class FileCopyRepositoryResolverTest {
+
+  @Test
+  public void testStripAndRehydrate() throws Exception {
+    val repository = Repositories.getRepositories().iterator().next();
+    val resolver = FileCopyRepositoryResolver.fromRepositories(Repositories.getRepositories());
+
+    val file = DEFAULT.createObjectNode();
+    val fileCopy = file.withArray("file_copies").addObject()
+        .put("repo_code", repository.getCode())
+        .put("repo_name", repository.getName())
+        .put("repo_base_url", repository.getBaseUrl())
+        .put("repo_data_path", "/custom/path")
+        .put("repo_metadata_path", repository.getType().getMetadataPath());
+    val original = file.deepCopy();
+
+    resolver.strip(file);
+    assertThat(fileCopy.has("repo_base_url")).isFalse();
+    assertThat(fileCopy.path("repo_data_path").textValue()).isEqualTo("/custom/path");
+
+    // Simulate _source excludes
+    fileCopy.remove("repo_name");
+
+    resolver.rehydrate(file);
+    assertThat(fileCopy.path("repo_base_url").textValue()).isEqualTo(repository.getBaseUrl());
+    assertThat(fileCopy.path("repo_name").textValue()).isEqualTo(repository.getName());
+    assertThat(fileCopy.path("repo_data_path").textValue()).isEqualTo("/custom/path");
+    assertThat(fileCopy.path("repo_code")).isEqualTo(original.path("file_copies").path(0).path("repo_code"));
+  }
+
+}
@@ -0,0 +1,63 @@
+/*
+ * Copyright (c) 2016 The Ontario Institute for Cancer Research. All rights reserved.
+ *                                                                                                               
+ * This program and the accompanying materials are made available under the terms of the GNU Public License v3.0.
+ * You should have received a copy of the GNU General Public License along with                                  
+ * this program. If not, see <http://www.gnu.org/licenses/>.                                                     
+ *                                                                                                               
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY                           
+ * EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES                          
+ * OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT                           
+ * SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT,                                
+ * INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED                          
+ * TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS;                               
+ * OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER                              
+ * IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN                         
+ * ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.icgc.dcc.repository.index.util;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.icgc.dcc.repository.index.model.DocumentType;
+import org.junit.Test;
+
+import lombok.val;
+
+public class IndexMetricsTest {
+
+  @Test
+  public void testLatencyHistogram() throws Exception {
+    val histogram = new LatencyHistogram();
+    for (int i = 1; i <= 100; i++) {
+      histogram.record(i);
+    }
+
+    assertThat(histogram.getCount()).isEqualTo(100);
+    assertThat(histogram.getMeanMs()).isEqualTo(50.5);
+    assertThat(histogram.getMaxMs()).isEqualTo(100);
+    assertThat(histogram.getPercentileMs(50)).isEqualTo(50);
+    assertThat(histogram.getPercentileMs(99)).isEqualTo(100);
+  }
+
+  @Test
+  public void testToJson() throws Exception {
+    val metrics = new IndexMetrics();
+    val typeMetrics = metrics.getDocumentType(DocumentType.FILE_CENTRIC);
+    typeMetrics.recordDocument(100, 1_000_000);
+    typeMetrics.recordBulk(20, 1);
+    typeMetrics.recordBulkRejections(1);
+    metrics.recordArchive(1000, 250);
+
+    val json = metrics.toJson();
+    val fileCentric = json.path("documentTypes").path("file-centric");
+    assertThat(fileCentric.path("documents").asLong()).isEqualTo(1);
+    assertThat(fileCentric.path("jackson").path("serializedBytes").asLong()).isEqualTo(100);
+    assertThat(fileCentric.path("elasticsearch").path("bulkRejections").asLong()).isEqualTo(1);
+    assertThat(fileCentric.path("elasticsearch").path("bulkLatency").path("buckets").path("le20").asLong())
+        .isEqualTo(1);
+    assertThat(json.path("archive").path("compressionRatio").asDouble()).isEqualTo(4.0);
+    assertThat(metrics.getDocumentType("donor-text")).isSameAs(metrics.getDocumentType(DocumentType.DONOR_TEXT));
+  }
+
+}
@@ -18,40 +18,29 @@
 package org.icgc.dcc.repository.pcawg;
 
 import static org.icgc.dcc.common.core.util.Formats.formatCount;
+import static org.icgc.dcc.common.core.util.stream.Collectors.toImmutableList;
 import static org.icgc.dcc.repository.core.model.RepositorySource.PCAWG;
-import static org.icgc.dcc.repository.pcawg.reader.PCAWGDonorArchiveReader.DEFAULT_PCAWG_DONOR_ARCHIVE_URL;
 
-import java.net.URL;
+import java.util.stream.Stream;
 
 import org.icgc.dcc.repository.core.RepositoryFileContext;
 import org.icgc.dcc.repository.core.model.RepositoryFile;
 import org.icgc.dcc.repository.core.util.GenericRepositorySourceFileImporter;
+import org.icgc.dcc.repository.pcawg.core.PCAWGDonorArchive;
 import org.icgc.dcc.repository.pcawg.core.PCAWGFileProcessor;
-import org.icgc.dcc.repository.pcawg.reader.PCAWGDonorArchiveReader;
 
 import com.fasterxml.jackson.databind.node.ObjectNode;
 
+import lombok.Cleanup;
 import lombok.NonNull;
-import lombok.SneakyThrows;
 import lombok.val;
 import lombok.extern.slf4j.Slf4j;
 
 @Slf4j
 public class PCAWGImporter extends GenericRepositorySourceFileImporter {
 
-  /**
-   * Configuration.
-   */
-  @NonNull
-  private final URL archiveUrl;
-
-  public PCAWGImporter(@NonNull URL archiveUrl, @NonNull RepositoryFileContext context) {
+  public PCAWGImporter(@NonNull RepositoryFileContext context) {
     super(PCAWG, context, log);
-    this.archiveUrl = archiveUrl;
-  }
-
-  public PCAWGImporter(RepositoryFileContext context) {
-    this(DEFAULT_PCAWG_DONOR_ARCHIVE_URL, context);
   }
 
   @Override
@@ -67,10 +56,19 @@ public class PCAWGImporter extends GenericRepositorySourceFileImporter {
     return files;
   }
 
-  @SneakyThrows
+  @Override
+  protected Stream<RepositoryFile> streamFiles() {
+    val archive = PCAWGDonorArchive.getInstance(context);
+    val processor = new PCAWGFileProcessor(context);
+
+    log.info("Streaming donor files...");
+    return processor.processDonors(archive.streamDonors(context.getImportOptions().getPcawgParallelism()));
+  }
+
   private Iterable<ObjectNode> readDonors() {
-    val reader = new PCAWGDonorArchiveReader(archiveUrl);
-    return reader.readDonors();
+    @Cleanup
+    val donors = PCAWGDonorArchive.getInstance(context).streamDonors(context.getImportOptions().getPcawgParallelism());
+    return donors.collect(toImmutableList());
   }
 
   private Iterable<RepositoryFile> processFiles(Iterable<ObjectNode> donors) {
@@ -0,0 +1,207 @@
+/*
+ * Copyright (c) 2016 The Ontario Institute for Cancer Research. All rights reserved.
+ *                                                                                                               
+ * This program and the accompanying materials are made available under the terms of the GNU Public License v3.0.
+ * You should have received a copy of the GNU General Public License along with                                  
+ * this program. If not, see <http://www.gnu.org/licenses/>.                                                     
+ *                                                                                                               
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY                           
+ * EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES                          
+ * OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT                           
+ * SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT,                                
+ * INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED                          
+ * TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS;                               
+ * OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER                              
+ * IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN                         
+ * ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.icgc.dcc.repository.pcawg.core;
+
+import static org.icgc.dcc.common.core.util.Formats.formatCount;
+import static org.icgc.dcc.repository.core.model.RepositorySource.PCAWG;
+import static org.icgc.dcc.repository.core.util.RepositoryFiles.qualifyDonorId;
+import static org.icgc.dcc.repository.pcawg.reader.PCAWGDonorArchiveReader.DEFAULT_PCAWG_DONOR_ARCHIVE_URL;
+import static org.icgc.dcc.repository.pcawg.util.PCAWGArchives.getDccProjectCode;
+import static org.icgc.dcc.repository.pcawg.util.PCAWGArchives.getSubmitterDonorId;
+
+import java.net.URL;
+import java.util.Set;
+import java.util.concurrent.ConcurrentMap;
+import java.util.stream.Stream;
+
+import org.icgc.dcc.repository.core.RepositoryFileContext;
+import org.icgc.dcc.repository.core.RepositoryFileContextBuilder;
+import org.icgc.dcc.repository.core.RepositoryIdResolver;
+import org.icgc.dcc.repository.core.model.RepositoryFile;
+import org.icgc.dcc.repository.pcawg.reader.PCAWGDonorArchiveCache;
+import org.icgc.dcc.repository.pcawg.reader.PCAWGDonorArchiveReader;
+
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.google.common.base.Stopwatch;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Multimap;
+import com.google.common.collect.Multimaps;
+
+import lombok.Cleanup;
+import lombok.NonNull;
+import lombok.SneakyThrows;
+import lombok.val;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Process wide access to a PCAWG donor archive and the indexes derived from it.
+ * <p>
+ * The archive is downloaded once into a {@link PCAWGDonorArchiveCache} and shared by the donor id resolver, the PCAWG
+ * importer and the PDC file resolver, which all resolve it from the same configured URL. Qualified donor ids and, when
+ * requested up front, the object id to file index are collected in a single pass over the donors.
+ */
+@Slf4j
+public class PCAWGDonorArchive {
+
+  /**
+   * Constants.
+   */
+  private static final ConcurrentMap<URL, PCAWGDonorArchive> INSTANCES = Maps.newConcurrentMap();
+
+  /**
+   * Dependencies.
+   */
+  private final URL donorArchiveUrl;
+  private final PCAWGDonorArchiveCache cache;
+
+  /**
+   * State.
+   */
+  private volatile Set<String> qualifiedDonorIds;
+  private volatile Multimap<String, RepositoryFile> files;
+
+  private PCAWGDonorArchive(URL donorArchiveUrl) {
+    this.donorArchiveUrl = donorArchiveUrl;
+    this.cache = new PCAWGDonorArchiveCache(donorArchiveUrl);
+  }
+
+  public static PCAWGDonorArchive getInstance() {
+    return getInstance(DEFAULT_PCAWG_DONOR_ARCHIVE_URL);
+  }
+
+  public static PCAWGDonorArchive getInstance(@NonNull URL donorArchiveUrl) {
+    return INSTANCES.computeIfAbsent(donorArchiveUrl, PCAWGDonorArchive::new);
+  }
+
+  /**
+   * @return the archive configured by {@code context}
+   */
+  public static PCAWGDonorArchive getInstance(@NonNull RepositoryFileContext context) {
+    val donorArchiveUrl = context.getImportOptions().getPcawgArchiveUrl();
+    return donorArchiveUrl == null ? getInstance() : getInstance(donorArchiveUrl);
+  }
+
+  /**
+   * Lazily reads donors from the local copy of the archive. The returned stream must be closed.
+   */
+  @SneakyThrows
+  public Stream<ObjectNode> streamDonors(int parallelism) {
+    val url = cache.getFile().toURI().toURL();
+    return new PCAWGDonorArchiveReader(url, parallelism).streamDonors();
+  }
+
+  /**
+   * @return {@code projectCode:submittedDonorId} ids of all donors in the archive
+   */
+  public Set<String> getQualifiedDonorIds() {
+    return getQualifiedDonorIds(false);
+  }
+
+  /**
+   * @param includeFiles whether to also build the file index in the same pass since it will be needed later
+   * @return {@code projectCode:submittedDonorId} ids of all donors in the archive
+   */
+  public Set<String> getQualifiedDonorIds(boolean includeFiles) {
+    if (qualifiedDonorIds == null || includeFiles && files == null) {
+      index(includeFiles);
+    }
+
+    return qualifiedDonorIds;
+  }
+
+  /**
+   * @return files of all donors in the archive indexed by object id. Ids are local and TCGA UUIDs are not translated.
+   */
+  public Multimap<String, RepositoryFile> getFiles() {
+    if (files == null) {
+      index(true);
+    }
+
+    return files;
+  }
+
+  private synchronized void index(boolean includeFiles) {
+    if (qualifiedDonorIds != null && (!includeFiles || files != null)) {
+      return;
+    }
+
+    val watch = Stopwatch.createStarted();
+    log.info("Indexing PCAWG donor archive '{}'...", donorArchiveUrl);
+
+    val donorIds = ImmutableSet.<String> builder();
+    @Cleanup
+    val donors = streamDonors(1).peek(donor -> donorIds.add(qualifyDonorId(donor)));
+    if (includeFiles) {
+      val processor = createFileProcessor();
+      @Cleanup
+      val donorFiles = processor.processDonors(donors);
+      this.files = Multimaps.index(donorFiles.iterator(), RepositoryFile::getObjectId);
+    } else {
+      donors.forEach(donor -> {});
+    }
+
+    this.qualifiedDonorIds = donorIds.build();
+    log.info("Indexed {} PCAWG donors{} in {}", formatCount(qualifiedDonorIds),
+        includeFiles ? " and " + formatCount(files.size()) + " files" : "", watch);
+  }
+
+  private static String qualifyDonorId(ObjectNode donor) {
+    return qualifyDonorId(getDccProjectCode(donor), getSubmitterDonorId(donor));
+  }
+
+  private static PCAWGFileProcessor createFileProcessor() {
+    return new PCAWGFileProcessor(createFileContext()) {
+
+      @Override
+      protected void translateUUIDs(Iterable<RepositoryFile> donorFiles) {
+        // No-op since this takes a while and is not needed for an object id index
+      }
+
+    };
+  }
+
+  private static RepositoryFileContext createFileContext() {
+    return RepositoryFileContextBuilder
+        .builder()
+        .importMongoUri(null)
+        .realIds(false)
+        .sources(ImmutableSet.of(PCAWG))
+        .indexAlias("")
+        .pcawgIdResolver(newEmptyIdResolver())
+        .dccIdResolver(newEmptyIdResolver())
+        .build();
+  }
+
+  private static RepositoryIdResolver newEmptyIdResolver() {
+    return new RepositoryIdResolver() {
+
+      @Override
+      public Set<String> resolveIds(String esSearchUrl) {
+        return ImmutableSet.of();
+      }
+
+      @Override
+      public Set<String> resolveIds() {
+        return ImmutableSet.of();
+      }
+
+    };
+  }
+
+}
@@ -20,7 +20,10 @@ package org.icgc.dcc.repository.pcawg.core;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.node.ObjectNode;
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Iterators;
+import com.google.common.collect.Maps;
 import lombok.NonNull;
+import lombok.Value;
 import lombok.extern.slf4j.Slf4j;
 import lombok.val;
 import org.icgc.dcc.repository.core.RepositoryFileContext;
@@ -34,9 +37,11 @@ import org.icgc.dcc.repository.pcawg.model.Workflow;
 
 import java.time.Instant;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
-import java.util.function.Predicate;
+import java.util.concurrent.ForkJoinPool;
 import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 import static com.google.common.base.Objects.firstNonNull;
 import static com.google.common.base.Preconditions.checkState;
@@ -44,10 +49,13 @@ import static com.google.common.primitives.Longs.max;
 import static java.time.format.DateTimeFormatter.ISO_OFFSET_DATE_TIME;
 import static java.util.Collections.singleton;
 import static java.util.Collections.singletonList;
+import static java.util.Spliterator.ORDERED;
+import static java.util.Spliterators.spliteratorUnknownSize;
 import static org.icgc.dcc.common.core.util.stream.Collectors.toImmutableList;
 import static org.icgc.dcc.common.core.util.stream.Streams.stream;
 import static org.icgc.dcc.repository.core.model.Repositories.getPCAWGRepository;
 import static org.icgc.dcc.repository.core.model.RepositoryProjects.getProjectByProjectCode;
+import static org.icgc.dcc.repository.core.util.ForkJoinPools.invoke;
 import static org.icgc.dcc.repository.pcawg.core.PCAWGFileInfoResolver.*;
 import static org.icgc.dcc.repository.pcawg.model.Analysis.analysis;
 import static org.icgc.dcc.repository.pcawg.util.PCAWGArchives.*;
@@ -55,13 +63,44 @@ import static org.icgc.dcc.repository.pcawg.util.PCAWGArchives.*;
 @Slf4j
 public class PCAWGFileProcessor extends RepositoryFileProcessor {
 
+    /**
+     * Constants.
+     */
+    private static final int DONOR_BATCH_SIZE = 100;
+
     public PCAWGFileProcessor(RepositoryFileContext context) {
         super(context);
     }
 
+    /**
+     * Processes {@code donors} in batches of {@link #DONOR_BATCH_SIZE} as they are consumed so that only the current
+     * batch of donors and their files are held in memory. Each batch is created, UUID translated and id assigned before
+     * the next one is pulled.
+     * <p>
+     * All batches share one worker pool which is shut down when the returned stream is closed.
+     */
+    public Stream<RepositoryFile> processDonors(@NonNull Stream<ObjectNode> donors) {
+        val pool = createPool();
+        val batches = Iterators.partition(donors.iterator(), DONOR_BATCH_SIZE);
+        return StreamSupport.stream(spliteratorUnknownSize(batches, ORDERED), false)
+                .map(batch -> processDonors(batch, pool))
+                .flatMap(files -> stream(files))
+                .onClose(() -> shutdown(pool))
+                .onClose(donors::close);
+    }
+
     public Iterable<RepositoryFile> processDonors(@NonNull Iterable<ObjectNode> donors) {
+        val pool = createPool();
+        try {
+            return processDonors(donors, pool);
+        } finally {
+            shutdown(pool);
+        }
+    }
+
+    private Iterable<RepositoryFile> processDonors(Iterable<ObjectNode> donors, ForkJoinPool pool) {
         log.info("Creating donor files...");
-        val donorFiles = createDonorFiles(donors);
+        val donorFiles = createDonorFiles(donors, pool);
 
         log.info("Translating TCGC UUIDs...");
         translateUUIDs(donorFiles);
@@ -72,8 +111,34 @@ public class PCAWGFileProcessor extends RepositoryFileProcessor {
         return donorFiles;
     }
 
-    private Iterable<RepositoryFile> createDonorFiles(Iterable<ObjectNode> donors) {
-        return stream(donors).map(this::processDonor).flatMap(List::stream).collect(toImmutableList());
+    /**
+     * Processes each donor as a task on {@code pool}, if any, preserving donor order. The context is safe for
+     * concurrent id resolution and donor lookups.
+     */
+    private Iterable<RepositoryFile> createDonorFiles(Iterable<ObjectNode> donors, ForkJoinPool pool) {
+        if (pool == null) {
+            return stream(donors).map(this::processDonor).flatMap(List::stream).collect(toImmutableList());
+        }
+
+        val donorList = ImmutableList.copyOf(donors);
+        return invoke(pool, () -> donorList.parallelStream()
+                .map(this::processDonor)
+                .flatMap(List::stream)
+                .collect(toImmutableList()));
+    }
+
+    /**
+     * @return a dedicated pool of {@code pcawgParallelism} workers or {@code null} to process donors sequentially
+     */
+    private ForkJoinPool createPool() {
+        val parallelism = context.getImportOptions().getPcawgParallelism();
+        return parallelism > 1 ? new ForkJoinPool(parallelism) : null;
+    }
+
+    private static void shutdown(ForkJoinPool pool) {
+        if (pool != null) {
+            pool.shutdown();
+        }
     }
 
     private List<RepositoryFile> processDonor(@NonNull ObjectNode donor) {
@@ -82,16 +147,19 @@ public class PCAWGFileProcessor extends RepositoryFileProcessor {
         for (val libraryStrategy : PCAWG_LIBRARY_STRATEGIES) {
             for (val specimenClass : PCAWG_SPECIMEN_CLASSES) {
                 for (val specimen : resolveSpecimens(donor, libraryStrategy, specimenClass)) {
-                    for (val workflow : resolveWorkflows(libraryStrategy, specimenClass, specimen))
-                        for (val workflowFile : resolveWorkflowFiles(workflow)) {
+                    for (val workflow : resolveWorkflows(libraryStrategy, specimenClass, specimen)) {
+                        val workflowFiles = resolveWorkflowFiles(workflow);
+                        for (val workflowFile : workflowFiles.getIncludedFiles()) {
                             donorFiles.add(
                                     createDonorFile(
                                             getDccProjectCode(donor),
                                             getSubmitterDonorId(donor),
                                             workflow.getAnalysis(),
                                             workflow.getWorkflow(),
-                                            workflowFile));
+                                            workflowFile,
+                                            workflowFiles));
                         }
+                    }
                 }
             }
         }
@@ -101,14 +169,16 @@ public class PCAWGFileProcessor extends RepositoryFileProcessor {
             for (val variantType : PCAWG_CONSENSUS_VARIANT_TYPES) {
                 for (val specimen : resolveSpecimens(donor, consensusCallType, variantType)) {
                     val workflow = resolveConsenusWorkflow(consensusCallType, variantType, specimen);
-                    for (val workflowFile : resolveWorkflowFiles(workflow)) {
+                    val workflowFiles = resolveWorkflowFiles(workflow);
+                    for (val workflowFile : workflowFiles.getIncludedFiles()) {
                         donorFiles.add(
                                 createDonorFile(
                                         getDccProjectCode(donor),
                                         getSubmitterDonorId(donor),
                                         workflow.getAnalysis(),
                                         workflow.getWorkflow(),
-                                        workflowFile));
+                                        workflowFile,
+                                        workflowFiles));
                     }
                 }
             }
@@ -118,7 +188,7 @@ public class PCAWGFileProcessor extends RepositoryFileProcessor {
     }
 
     private RepositoryFile createDonorFile(String projectCode, String submittedDonorId, Analysis analysis,
-                                           JsonNode workflow, JsonNode workflowFile) {
+                                           JsonNode workflow, JsonNode workflowFile, WorkflowFiles workflowFiles) {
 
         //
         // Prepare
@@ -139,9 +209,9 @@ public class PCAWGFileProcessor extends RepositoryFileProcessor {
 
         val pcawgRepositories = resolvePCAWGRepositories(workflow);
 
-        val baiFile = resolveBaiFile(workflow, fileName);
-        val tbiFile = resolveTbiFile(workflow, fileName);
-        val idxFile = resolveIdxFile(workflow, fileName);
+        val baiFile = workflowFiles.findFile(fileName + ".bai");
+        val tbiFile = workflowFiles.findFile(fileName + ".tbi");
+        val idxFile = workflowFiles.findFile(fileName + ".idx");
 
         //
         // Create
@@ -276,28 +346,20 @@ public class PCAWGFileProcessor extends RepositoryFileProcessor {
         return () -> specimen.fieldNames();
     }
 
-    private static List<JsonNode> resolveWorkflowFiles(Workflow workflow) {
-        return resolveFiles(workflow.getWorkflow(), workflowFile -> !isExcluded(workflow.getAnalysis(), workflowFile))
-                .collect(toImmutableList());
-    }
-
-    private static Optional<JsonNode> resolveBaiFile(JsonNode workflow, String fileName) {
-        val baiFileName = fileName + ".bai";
-        return resolveFiles(workflow, file -> baiFileName.equals(resolveFileName(file))).findFirst();
-    }
-
-    private static Optional<JsonNode> resolveTbiFile(JsonNode workflow, String fileName) {
-        val tbiFileName = fileName + ".tbi";
-        return resolveFiles(workflow, file -> tbiFileName.equals(resolveFileName(file))).findFirst();
-    }
-
-    private static Optional<JsonNode> resolveIdxFile(JsonNode workflow, String fileName) {
-        val idxFileName = fileName + ".idx";
-        return resolveFiles(workflow, file -> idxFileName.equals(resolveFileName(file))).findFirst();
-    }
+    /**
+     * Indexes the files of {@code workflow} by name and decides which of them are included in a single pass.
+     */
+    private static WorkflowFiles resolveWorkflowFiles(Workflow workflow) {
+        val includedFiles = ImmutableList.<JsonNode>builder();
+        val filesByName = Maps.<String, JsonNode>newHashMap();
+        for (val workflowFile : getFiles(workflow.getWorkflow())) {
+            filesByName.putIfAbsent(resolveFileName(workflowFile), workflowFile);
+            if (!isExcluded(workflow.getAnalysis(), workflowFile)) {
+                includedFiles.add(workflowFile);
+            }
+        }
 
-    private static Stream<JsonNode> resolveFiles(JsonNode workflow, Predicate<? super JsonNode> filter) {
-        return stream(getFiles(workflow)).filter(filter);
+        return new WorkflowFiles(includedFiles.build(), filesByName);
     }
 
     private static List<Repository> resolvePCAWGRepositories(JsonNode workflow) {
@@ -338,8 +400,10 @@ public class PCAWGFileProcessor extends RepositoryFileProcessor {
         val excluded = true;
         val included = false;
         val fileName = getFileName(workflowFile);
+        val lowerCaseFileName = fileName.toLowerCase();
 
-        if (!isBamFile(workflowFile) && !isVcfFile(workflowFile) && !isXmlFile(workflowFile)) {
+        if (!lowerCaseFileName.endsWith(".bam") && !lowerCaseFileName.endsWith(".vcf.gz")
+                && !lowerCaseFileName.endsWith(".xml")) {
             return excluded;
         }
         if (fileName.contains(".germline.") &&
@@ -364,20 +428,19 @@ public class PCAWGFileProcessor extends RepositoryFileProcessor {
         return included;
     }
 
-    private static boolean isBamFile(JsonNode file) {
-        return hasFileExtension(file, ".bam");
-    }
+    /**
+     * Files of a workflow with their inclusion decided and an index by name for companion index file lookups.
+     */
+    @Value
+    private static class WorkflowFiles {
 
-    private static boolean isVcfFile(JsonNode file) {
-        return hasFileExtension(file, ".vcf.gz");
-    }
+        List<JsonNode> includedFiles;
+        Map<String, JsonNode> filesByName;
 
-    private static boolean isXmlFile(JsonNode file) {
-        return hasFileExtension(file, ".xml");
-    }
+        Optional<JsonNode> findFile(String fileName) {
+            return Optional.ofNullable(filesByName.get(fileName));
+        }
 
-    private static boolean hasFileExtension(JsonNode file, String fileType) {
-        return getFileName(file).toLowerCase().endsWith(fileType.toLowerCase());
     }
 
 }
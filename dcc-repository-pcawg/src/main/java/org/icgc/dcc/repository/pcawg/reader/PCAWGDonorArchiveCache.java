@@ -0,0 +1,198 @@
+/*
+ * Copyright (c) 2016 The Ontario Institute for Cancer Research. All rights reserved.
+ *                                                                                                               
+ * This program and the accompanying materials are made available under the terms of the GNU Public License v3.0.
+ * You should have received a copy of the GNU General Public License along with                                  
+ * this program. If not, see <http://www.gnu.org/licenses/>.                                                     
+ *                                                                                                               
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY                           
+ * EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES                          
+ * OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT                           
+ * SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT,                                
+ * INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED                          
+ * TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS;                               
+ * OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER                              
+ * IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN                         
+ * ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.icgc.dcc.repository.pcawg.reader;
+
+import static com.google.common.base.Preconditions.checkState;
+import static java.net.HttpURLConnection.HTTP_NOT_MODIFIED;
+import static java.net.HttpURLConnection.HTTP_OK;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.icgc.dcc.common.core.json.Jackson.DEFAULT;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.net.HttpURLConnection;
+import java.net.URL;
+
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.google.common.hash.Hashing;
+import com.google.common.hash.HashingInputStream;
+import com.google.common.io.ByteStreams;
+import com.google.common.io.Files;
+
+import lombok.Cleanup;
+import lombok.NonNull;
+import lombok.RequiredArgsConstructor;
+import lombok.SneakyThrows;
+import lombok.val;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Local copy of a remote PCAWG donor archive.
+ * <p>
+ * The archive is downloaded at most once per process. A previous download is reused when the server answers a
+ * conditional request with its {@code ETag} / {@code Last-Modified} as not modified, or when the server cannot be
+ * reached or fails to serve it, provided that its MD5 still matches the one recorded when it was downloaded.
+ */
+@Slf4j
+@RequiredArgsConstructor
+public class PCAWGDonorArchiveCache {
+
+  /**
+   * Constants.
+   */
+  public static final File DEFAULT_CACHE_DIR = new File(System.getProperty("java.io.tmpdir"), "dcc-repository-pcawg");
+
+  /**
+   * Configuration.
+   */
+  @NonNull
+  private final URL donorArchiveUrl;
+  @NonNull
+  private final File cacheDir;
+
+  /**
+   * State.
+   */
+  private File file;
+
+  public PCAWGDonorArchiveCache(URL donorArchiveUrl) {
+    this(donorArchiveUrl, DEFAULT_CACHE_DIR);
+  }
+
+  /**
+   * @return the validated local copy of the archive
+   */
+  @SneakyThrows
+  public synchronized File getFile() {
+    if (file == null) {
+      file = isRemote() ? resolveFile() : new File(donorArchiveUrl.toURI());
+    }
+
+    return file;
+  }
+
+  private File resolveFile() throws IOException {
+    // Archives of different URLs may share a file name
+    val urlHash = Hashing.md5().hashString(donorArchiveUrl.toString(), UTF_8);
+    val file = new File(cacheDir, urlHash + "-" + new File(donorArchiveUrl.getPath()).getName());
+    val metadataFile = new File(cacheDir, file.getName() + ".json");
+    val metadata = readMetadata(file, metadataFile);
+
+    try {
+      val connection = (HttpURLConnection) donorArchiveUrl.openConnection();
+      if (metadata != null) {
+        setIfPresent(connection, "If-None-Match", metadata.path("etag").textValue());
+        setIfPresent(connection, "If-Modified-Since", metadata.path("lastModified").textValue());
+      }
+
+      val responseCode = connection.getResponseCode();
+      if (responseCode == HTTP_NOT_MODIFIED && metadata != null) {
+        log.info("Reusing unmodified '{}' from '{}'", donorArchiveUrl, file);
+        return file;
+      }
+      if (responseCode != HTTP_OK) {
+        // Treated like an unreachable server so that a verified copy is reused
+        throw new IOException("Unexpected response " + responseCode + " from '" + donorArchiveUrl + "'");
+      }
+
+      download(connection, file, metadataFile);
+
+      return file;
+    } catch (IOException e) {
+      if (metadata == null) {
+        throw e;
+      }
+
+      log.warn("Could not reach '{}', reusing '{}': {}", donorArchiveUrl, file, e.getMessage());
+      return file;
+    }
+  }
+
+  private void download(HttpURLConnection connection, File file, File metadataFile) throws IOException {
+    checkState(cacheDir.isDirectory() || cacheDir.mkdirs(), "Could not create PCAWG cache directory %s", cacheDir);
+    log.info("Downloading '{}' to '{}'...", donorArchiveUrl, file);
+
+    // Write to a unique sibling first so that an interrupted or concurrent download never replaces a valid copy
+    val temp = File.createTempFile(file.getName(), ".tmp", cacheDir);
+    try {
+      @Cleanup
+      val input = new HashingInputStream(Hashing.md5(), connection.getInputStream());
+      try (val output = new FileOutputStream(temp)) {
+        val size = ByteStreams.copy(input, output);
+        val expectedSize = connection.getContentLengthLong();
+        if (expectedSize >= 0 && size != expectedSize) {
+          throw new IOException("Truncated download of '" + donorArchiveUrl + "': " + size + " of " + expectedSize
+              + " bytes");
+        }
+      }
+
+      checkState(temp.renameTo(file), "Could not rename '%s' to '%s'", temp, file);
+
+      val metadata = DEFAULT.createObjectNode()
+          .put("url", donorArchiveUrl.toString())
+          .put("etag", connection.getHeaderField("ETag"))
+          .put("lastModified", connection.getHeaderField("Last-Modified"))
+          .put("md5", input.hash().toString());
+      DEFAULT.writeValue(temp, metadata);
+      checkState(temp.renameTo(metadataFile), "Could not rename '%s' to '%s'", temp, metadataFile);
+      log.info("Downloaded '{}' with MD5 {}", donorArchiveUrl, metadata.get("md5").textValue());
+    } finally {
+      temp.delete();
+    }
+  }
+
+  /**
+   * @return the metadata of the previous download if it is still intact, otherwise {@code null}
+   */
+  private ObjectNode readMetadata(File file, File metadataFile) {
+    if (!file.exists() || !metadataFile.exists()) {
+      return null;
+    }
+
+    try {
+      val metadata = DEFAULT.readValue(metadataFile, ObjectNode.class);
+      if (!donorArchiveUrl.toString().equals(metadata.path("url").textValue())) {
+        log.warn("Discarding '{}' downloaded from '{}'", file, metadata.path("url").textValue());
+        return null;
+      }
+
+      val md5 = Files.hash(file, Hashing.md5()).toString();
+      if (!md5.equals(metadata.path("md5").textValue())) {
+        log.warn("Discarding '{}' with MD5 {} that does not match {}", file, md5, metadata.path("md5").textValue());
+        return null;
+      }
+
+      return metadata;
+    } catch (IOException e) {
+      log.warn("Discarding unreadable '{}': {}", metadataFile, e.getMessage());
+      return null;
+    }
+  }
+
+  private boolean isRemote() {
+    return donorArchiveUrl.getProtocol().startsWith("http");
+  }
+
+  private static void setIfPresent(HttpURLConnection connection, String header, String value) {
+    if (value != null) {
+      connection.setRequestProperty(header, value);
+    }
+  }
+
+}
@@ -1,18 +1,37 @@
 package org.icgc.dcc.repository.pcawg.reader;
 
 import static com.fasterxml.jackson.core.JsonParser.Feature.AUTO_CLOSE_SOURCE;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.Spliterator.ORDERED;
+import static java.util.Spliterators.spliteratorUnknownSize;
 import static org.icgc.dcc.common.core.util.URLs.getUrl;
 import static org.icgc.dcc.repository.pcawg.util.PCAWGArchives.PCAWG_ARCHIVE_BASE_URL;
 
+import java.io.BufferedReader;
+import java.io.Closeable;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.InputStreamReader;
 import java.net.URL;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 import com.fasterxml.jackson.databind.MappingIterator;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.ObjectReader;
 import com.fasterxml.jackson.databind.node.ObjectNode;
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 
 import lombok.Cleanup;
 import lombok.NonNull;
@@ -40,6 +59,7 @@ public class PCAWGDonorArchiveReader {
    */
   private static final ObjectMapper MAPPER = new ObjectMapper().configure(AUTO_CLOSE_SOURCE, false);
   private static final ObjectReader READER = MAPPER.reader(ObjectNode.class);
+  private static final int LINE_BATCH_SIZE = 16;
 
   /**
    * State.
@@ -47,8 +67,17 @@ public class PCAWGDonorArchiveReader {
   @NonNull
   private final URL donorArchiveUrl;
 
+  /**
+   * Configuration.
+   */
+  private final int parallelism;
+
+  public PCAWGDonorArchiveReader(URL donorArchiveUrl) {
+    this(donorArchiveUrl, 1);
+  }
+
   public PCAWGDonorArchiveReader() {
-    this.donorArchiveUrl = DEFAULT_PCAWG_DONOR_ARCHIVE_URL;
+    this(DEFAULT_PCAWG_DONOR_ARCHIVE_URL);
   }
 
   public Iterable<ObjectNode> readDonors() throws IOException {
@@ -59,13 +88,137 @@ public class PCAWGDonorArchiveReader {
     return ImmutableList.copyOf(iterator);
   }
 
+  /**
+   * Lazily reads donors in archive order so that only the donors being consumed are held in memory. With
+   * {@code parallelism} above one, lines are parsed on a worker pool with a bounded window of batches ahead of the
+   * consumer.
+   * <p>
+   * The returned stream must be closed to release the connection.
+   */
+  @SneakyThrows
+  public Stream<ObjectNode> streamDonors() {
+    log.info("Streaming donors from '{}' with parallelism {}...", donorArchiveUrl, parallelism);
+    if (parallelism > 1) {
+      val batches = new DonorBatchIterator(openReader());
+      return stream(batches).flatMap(List::stream).onClose(batches::close);
+    }
+
+    val iterator = readValues();
+    return stream(iterator).onClose(() -> close(iterator));
+  }
+
   private MappingIterator<ObjectNode> readValues() throws IOException {
     return READER.readValues(openStream());
   }
 
+  private BufferedReader openReader() {
+    return new BufferedReader(new InputStreamReader(openStream(), UTF_8));
+  }
+
   @SneakyThrows
   private InputStream openStream() {
     return donorArchiveUrl.openStream();
   }
 
-}
\ No newline at end of file
+  private static <T> Stream<T> stream(Iterator<T> iterator) {
+    return StreamSupport.stream(spliteratorUnknownSize(iterator, ORDERED), false);
+  }
+
+  @SneakyThrows
+  private static void close(Closeable closeable) {
+    closeable.close();
+  }
+
+  /**
+   * Ordered iterator over batches of parsed donors that keeps up to {@code parallelism} batches in flight.
+   */
+  private class DonorBatchIterator implements Iterator<List<ObjectNode>>, Closeable {
+
+    private final BufferedReader reader;
+    private final Deque<Future<List<ObjectNode>>> inFlight = new ArrayDeque<>();
+    private final ExecutorService executor = Executors.newFixedThreadPool(parallelism,
+        new ThreadFactoryBuilder().setNameFormat("pcawg-donor-%d").setDaemon(true).build());
+
+    private boolean eof;
+
+    private DonorBatchIterator(BufferedReader reader) {
+      this.reader = reader;
+      fill();
+    }
+
+    @Override
+    public boolean hasNext() {
+      if (inFlight.isEmpty()) {
+        close();
+        return false;
+      }
+
+      return true;
+    }
+
+    @Override
+    @SneakyThrows
+    public List<ObjectNode> next() {
+      if (!hasNext()) {
+        throw new NoSuchElementException();
+      }
+
+      try {
+        val batch = inFlight.poll().get();
+        fill();
+
+        return batch;
+      } catch (ExecutionException e) {
+        close();
+        throw e.getCause();
+      }
+    }
+
+    @Override
+    @SneakyThrows
+    public void close() {
+      inFlight.forEach(future -> future.cancel(true));
+      inFlight.clear();
+      executor.shutdownNow();
+      reader.close();
+    }
+
+    private void fill() {
+      while (inFlight.size() < parallelism && !eof) {
+        val lines = readLines();
+        if (!lines.isEmpty()) {
+          inFlight.add(executor.submit(() -> parse(lines)));
+        }
+      }
+    }
+
+    @SneakyThrows
+    private List<String> readLines() {
+      val lines = Lists.<String> newArrayListWithCapacity(LINE_BATCH_SIZE);
+      while (lines.size() < LINE_BATCH_SIZE) {
+        val line = reader.readLine();
+        if (line == null) {
+          eof = true;
+          break;
+        }
+
+        if (!line.trim().isEmpty()) {
+          lines.add(line);
+        }
+      }
+
+      return lines;
+    }
+
+    private List<ObjectNode> parse(List<String> lines) throws IOException {
+      val donors = Lists.<ObjectNode> newArrayListWithCapacity(lines.size());
+      for (val line : lines) {
+        donors.add(READER.readValue(line));
+      }
+
+      return donors;
+    }
+
+  }
+
+}
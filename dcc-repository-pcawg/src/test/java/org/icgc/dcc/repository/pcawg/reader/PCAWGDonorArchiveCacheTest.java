@@ -0,0 +1,172 @@
+/*
+ * Copyright (c) 2016 The Ontario Institute for Cancer Research. All rights reserved.
+ *                                                                                                               
+ * This program and the accompanying materials are made available under the terms of the GNU Public License v3.0.
+ * You should have received a copy of the GNU General Public License along with                                  
+ * this program. If not, see <http://www.gnu.org/licenses/>.                                                     
+ *                                                                                                               
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY                           
+ * EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES                          
+ * OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT                           
+ * SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT,                                
+ * INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED                          
+ * TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS;                               
+ * OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER                              
+ * IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN                         
+ * ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.icgc.dcc.repository.pcawg.reader;
+
+import static java.net.HttpURLConnection.HTTP_INTERNAL_ERROR;
+import static java.net.HttpURLConnection.HTTP_NOT_MODIFIED;
+import static java.net.HttpURLConnection.HTTP_OK;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.URL;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.google.common.collect.Lists;
+import com.google.common.io.Files;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import lombok.SneakyThrows;
+import lombok.val;
+
+public class PCAWGDonorArchiveCacheTest {
+
+  /**
+   * Constants.
+   */
+  private static final String ETAG = "\"v1\"";
+  private static final byte[] ARCHIVE = "{\"donor_unique_id\":\"PROJ-1::DO1\"}\n".getBytes(UTF_8);
+
+  @Rule
+  public TemporaryFolder tmp = new TemporaryFolder();
+
+  /**
+   * State.
+   */
+  HttpServer server;
+  volatile int status = HTTP_OK;
+  List<String> conditions = Lists.newCopyOnWriteArrayList();
+  File cacheDir;
+
+  @Before
+  public void setUp() throws IOException {
+    server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+    server.createContext("/", this::handle);
+    server.start();
+    cacheDir = tmp.newFolder("cache");
+  }
+
+  @After
+  public void tearDown() {
+    server.stop(0);
+  }
+
+  @Test
+  public void testDownload() throws IOException {
+    val file = newCache("/a/donors.jsonl.gz").getFile();
+
+    assertThat(Files.toByteArray(file)).isEqualTo(ARCHIVE);
+    assertThat(conditions).containsExactly("none");
+    assertThat(cacheDir.list()).hasSize(2); // Archive and metadata, no leftover temp file
+  }
+
+  @Test
+  public void testNotModified() throws IOException {
+    val file = newCache("/a/donors.jsonl.gz").getFile();
+    val lastModified = file.lastModified();
+
+    val reused = newCache("/a/donors.jsonl.gz").getFile();
+
+    assertThat(reused).isEqualTo(file);
+    assertThat(reused.lastModified()).isEqualTo(lastModified);
+    assertThat(conditions).containsExactly("none", ETAG);
+  }
+
+  @Test
+  public void testServerErrorFallback() throws IOException {
+    val file = newCache("/a/donors.jsonl.gz").getFile();
+
+    status = HTTP_INTERNAL_ERROR;
+    val reused = newCache("/a/donors.jsonl.gz").getFile();
+
+    assertThat(reused).isEqualTo(file);
+    assertThat(Files.toByteArray(reused)).isEqualTo(ARCHIVE);
+  }
+
+  @Test(expected = IOException.class)
+  public void testServerErrorWithoutCopy() {
+    status = HTTP_INTERNAL_ERROR;
+    newCache("/a/donors.jsonl.gz").getFile();
+  }
+
+  @Test
+  public void testMd5Mismatch() throws IOException {
+    val file = newCache("/a/donors.jsonl.gz").getFile();
+    Files.write("corrupt".getBytes(UTF_8), file);
+
+    val redownloaded = newCache("/a/donors.jsonl.gz").getFile();
+
+    // The corrupt copy must not be revalidated with the recorded ETag
+    assertThat(conditions).containsExactly("none", "none");
+    assertThat(Files.toByteArray(redownloaded)).isEqualTo(ARCHIVE);
+  }
+
+  @Test(expected = IOException.class)
+  public void testMd5MismatchWithoutServer() throws IOException {
+    val file = newCache("/a/donors.jsonl.gz").getFile();
+    Files.write("corrupt".getBytes(UTF_8), file);
+
+    status = HTTP_INTERNAL_ERROR;
+    newCache("/a/donors.jsonl.gz").getFile();
+  }
+
+  @Test
+  public void testSameFileNameOfDifferentUrls() throws IOException {
+    val file = newCache("/a/donors.jsonl.gz").getFile();
+    val other = newCache("/b/donors.jsonl.gz").getFile();
+
+    assertThat(other).isNotEqualTo(file);
+    assertThat(conditions).containsExactly("none", "none");
+  }
+
+  private PCAWGDonorArchiveCache newCache(String path) {
+    return new PCAWGDonorArchiveCache(getUrl(path), cacheDir);
+  }
+
+  @SneakyThrows
+  private URL getUrl(String path) {
+    return new URL("http", "localhost", server.getAddress().getPort(), path);
+  }
+
+  private void handle(HttpExchange exchange) throws IOException {
+    val condition = exchange.getRequestHeaders().getFirst("If-None-Match");
+    conditions.add(condition == null ? "none" : condition);
+
+    if (status != HTTP_OK) {
+      exchange.sendResponseHeaders(status, -1);
+    } else if (ETAG.equals(condition)) {
+      exchange.sendResponseHeaders(HTTP_NOT_MODIFIED, -1);
+    } else {
+      exchange.getResponseHeaders().set("ETag", ETAG);
+      exchange.sendResponseHeaders(HTTP_OK, ARCHIVE.length);
+      exchange.getResponseBody().write(ARCHIVE);
+    }
+
+    exchange.close();
+  }
+
+}
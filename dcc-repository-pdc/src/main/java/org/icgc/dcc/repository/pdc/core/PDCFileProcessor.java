@@ -18,8 +18,10 @@
 package org.icgc.dcc.repository.pdc.core;
 
 import static java.util.stream.Collectors.toList;
+import static org.icgc.dcc.common.core.util.Formats.formatCount;
 
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 import org.icgc.dcc.repository.core.RepositoryFileContext;
@@ -27,9 +29,11 @@ import org.icgc.dcc.repository.core.RepositoryFileProcessor;
 import org.icgc.dcc.repository.core.model.Repository;
 import org.icgc.dcc.repository.core.model.RepositoryFile;
 import org.icgc.dcc.repository.core.model.RepositoryFile.FileCopy;
+import org.icgc.dcc.repository.pcawg.core.PCAWGDonorArchive;
 import org.icgc.dcc.repository.pdc.util.PCAWGFileResolver;
 
 import com.amazonaws.services.s3.model.S3ObjectSummary;
+import com.google.common.collect.Maps;
 
 import lombok.NonNull;
 import lombok.val;
@@ -47,18 +51,22 @@ public class PDCFileProcessor extends RepositoryFileProcessor {
   /**
    * Dependencies.
    */
-  private final PCAWGFileResolver resolver = new PCAWGFileResolver();
+  private final PCAWGFileResolver resolver;
 
   public PDCFileProcessor(RepositoryFileContext context, @NonNull Repository pdcRepository) {
     super(context);
     this.pdcRepository = pdcRepository;
+    this.resolver = new PCAWGFileResolver(PCAWGDonorArchive.getInstance(context));
     log.warn("No XML files will be indexed!");
   }
 
   public Iterable<RepositoryFile> processFiles(List<S3ObjectSummary> objectSummaries) {
+    log.info("Indexing {} object summaries...", formatCount(objectSummaries));
+    val objectSummaryIndex = indexObjectSummaries(objectSummaries);
+
     return objectSummaries.stream()
         .filter(this::isIncluded)
-        .map(file -> createFile(file, objectSummaries))
+        .map(file -> createFile(file, objectSummaryIndex))
         .collect(toList());
   }
 
@@ -66,8 +74,9 @@ public class PDCFileProcessor extends RepositoryFileProcessor {
     return resolvePCAWGFile(objectId).getFileCopies().get(0);
   }
 
-  private Optional<S3ObjectSummary> resolveObjectSummary(List<S3ObjectSummary> objectSummaries, String objectId) {
-    return objectSummaries.stream().filter(s -> s.getKey().equals(objectId)).findFirst();
+  private Optional<S3ObjectSummary> resolveObjectSummary(Map<String, S3ObjectSummary> objectSummaryIndex,
+      String objectId) {
+    return Optional.ofNullable(objectSummaryIndex.get(objectId));
   }
 
   private boolean isIncluded(S3ObjectSummary objectSummary) {
@@ -85,7 +94,7 @@ public class PDCFileProcessor extends RepositoryFileProcessor {
     return true;
   }
 
-  private RepositoryFile createFile(S3ObjectSummary objectSummary, List<S3ObjectSummary> objectSummaries) {
+  private RepositoryFile createFile(S3ObjectSummary objectSummary, Map<String, S3ObjectSummary> objectSummaryIndex) {
     val objectId = resolveObjectId(objectSummary);
     val pcawgFileCopy = resolvePCAWGFileCopy(objectId);
 
@@ -115,7 +124,7 @@ public class PDCFileProcessor extends RepositoryFileProcessor {
 
     if (pcawgFileCopy.getIndexFile() != null) {
       val pcawgIndexFile = pcawgFileCopy.getIndexFile();
-      val indexSummary = resolveObjectSummary(objectSummaries, pcawgIndexFile.getObjectId());
+      val indexSummary = resolveObjectSummary(objectSummaryIndex, pcawgIndexFile.getObjectId());
       if (indexSummary.isPresent()) {
         fileCopy.getIndexFile()
             .setId(context.ensureFileId(pcawgIndexFile.getObjectId()))
@@ -130,6 +139,16 @@ public class PDCFileProcessor extends RepositoryFileProcessor {
     return objectFile;
   }
 
+  private static Map<String, S3ObjectSummary> indexObjectSummaries(Iterable<S3ObjectSummary> objectSummaries) {
+    // First summary wins, as with the linear lookup this replaces
+    val objectSummaryIndex = Maps.<String, S3ObjectSummary> newHashMap();
+    for (val objectSummary : objectSummaries) {
+      objectSummaryIndex.putIfAbsent(resolveObjectId(objectSummary), objectSummary);
+    }
+
+    return objectSummaryIndex;
+  }
+
   private static String resolveObjectId(S3ObjectSummary objectSummary) {
     return objectSummary.getKey();
   }